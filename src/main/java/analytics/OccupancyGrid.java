@@ -0,0 +1,175 @@
+package analytics;
+
+import java.util.Arrays;
+
+/**
+ * Сетка занятости с экспоненциальным затуханием.
+ * Каждое попадание робота в ячейку увеличивает её вес, а все веса
+ * затухают вдвое за заданный период полураспада.
+ * <p>
+ * Затухание не требует обхода всей сетки на каждом шаге: вместо уменьшения
+ * старых весов увеличивается вклад новых попаданий, а общий множитель
+ * изредка возвращается к единице. Память фиксирована и не зависит
+ * от длительности наблюдения. Класс не потокобезопасен.
+ */
+public class OccupancyGrid {
+
+    /**
+     * Порог множителя, после которого веса нормируются, чтобы избежать переполнения.
+     */
+    private static final double RENORMALIZE_THRESHOLD = 1e30;
+
+    /**
+     * Число столбцов сетки.
+     */
+    private final int columns;
+    /**
+     * Число строк сетки.
+     */
+    private final int rows;
+    /**
+     * Размер ячейки в пикселях.
+     */
+    private final int cellSize;
+    /**
+     * Период полураспада весов в миллисекундах времени модели.
+     */
+    private final double halfLife;
+    /**
+     * Веса ячеек, умноженные на {@link #scale}.
+     */
+    private final float[] weights;
+    /**
+     * Текущий множитель вклада попаданий.
+     */
+    private double scale = 1;
+    /**
+     * Время последнего попадания в миллисекундах модели.
+     */
+    private long lastTime = Long.MIN_VALUE;
+
+    /**
+     * Создаёт пустую сетку.
+     *
+     * @param columns  число столбцов
+     * @param rows     число строк
+     * @param cellSize размер ячейки в пикселях
+     * @param halfLife период полураспада весов в миллисекундах модели
+     */
+    public OccupancyGrid(int columns, int rows, int cellSize, double halfLife) {
+        if (columns <= 0 || rows <= 0 || cellSize <= 0 || halfLife <= 0) {
+            throw new IllegalArgumentException("Размеры сетки и период полураспада должны быть положительными");
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.cellSize = cellSize;
+        this.halfLife = halfLife;
+        this.weights = new float[columns * rows];
+    }
+
+    /**
+     * Учитывает пребывание робота в точке. Точки за пределами сетки игнорируются.
+     *
+     * @param x    координата X в пикселях
+     * @param y    координата Y в пикселях
+     * @param time время модели в миллисекундах
+     */
+    public void add(double x, double y, long time) {
+        advanceTo(time);
+        int column = (int) Math.floor(x / cellSize);
+        int row = (int) Math.floor(y / cellSize);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) {
+            return;
+        }
+        weights[row * columns + column] += (float) scale;
+    }
+
+    /**
+     * Сдвигает время сетки, наращивая множитель вклада новых попаданий.
+     *
+     * @param time время модели в миллисекундах
+     */
+    private void advanceTo(long time) {
+        if (lastTime != Long.MIN_VALUE && time > lastTime) {
+            scale *= Math.pow(2, (time - lastTime) / halfLife);
+            if (scale > RENORMALIZE_THRESHOLD) {
+                renormalize();
+            }
+        }
+        lastTime = Math.max(lastTime, time);
+    }
+
+    /**
+     * Делит все веса на текущий множитель и сбрасывает его в единицу.
+     */
+    private void renormalize() {
+        float factor = (float) (1 / scale);
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] *= factor;
+        }
+        scale = 1;
+    }
+
+    /**
+     * Возвращает вес ячейки с учётом затухания на момент последнего попадания.
+     *
+     * @param column столбец
+     * @param row    строка
+     * @return вес ячейки
+     */
+    public double weight(int column, int row) {
+        return weights[row * columns + column] / scale;
+    }
+
+    /**
+     * Копирует относительные веса ячеек в массив.
+     * Веса нормируются так, что максимальный равен единице.
+     *
+     * @param target массив длиной не меньше {@code columns * rows}
+     * @return максимальный вес до нормировки
+     */
+    public double normalizedWeights(float[] target) {
+        float max = 0;
+        for (float weight : weights) {
+            max = Math.max(max, weight);
+        }
+        if (max == 0) {
+            Arrays.fill(target, 0, weights.length, 0);
+            return 0;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            target[i] = weights[i] / max;
+        }
+        return max / scale;
+    }
+
+    /**
+     * Очищает сетку.
+     */
+    public void clear() {
+        Arrays.fill(weights, 0);
+        scale = 1;
+        lastTime = Long.MIN_VALUE;
+    }
+
+    /**
+     * @return число столбцов сетки
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return число строк сетки
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return размер ячейки в пикселях
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+}
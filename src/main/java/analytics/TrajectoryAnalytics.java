@@ -0,0 +1,283 @@
+package analytics;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Потоковая аналитика траекторий роботов.
+ * Поток модели публикует положения роботов в кольцевой буфер фиксированного
+ * размера, а отдельный фоновый поток забирает их, обновляет сетку занятости
+ * и статистику траекторий, а изображение тепловой карты перестраивает
+ * только пока отрисовка включена (см. {@link #setRenderingEnabled(boolean)})
+ * и только если с прошлого построения пришли новые отсчёты.
+ * Вся память выделяется при создании и не зависит от длительности работы;
+ * при переполнении буфера новые отсчёты отбрасываются и учитываются в счётчике.
+ * <p>
+ * Публиковать отсчёты может только один поток.
+ */
+public class TrajectoryAnalytics {
+
+    /**
+     * Ёмкость буфера отсчётов, степень двойки.
+     */
+    private static final int BUFFER_CAPACITY = 1 << 12;
+    /**
+     * Период перестроения изображения тепловой карты в миллисекундах.
+     */
+    private static final long RENDER_PERIOD = 100;
+    /**
+     * Пауза фонового потока при пустом буфере в наносекундах.
+     */
+    private static final long IDLE_PARK = 5_000_000;
+
+    /**
+     * Номера роботов в отсчётах.
+     */
+    private final int[] robotIds = new int[BUFFER_CAPACITY];
+    /**
+     * Время модели в отсчётах.
+     */
+    private final long[] times = new long[BUFFER_CAPACITY];
+    /**
+     * Координаты робота и цели в отсчётах, по четыре значения на отсчёт.
+     */
+    private final double[] coordinates = new double[BUFFER_CAPACITY * 4];
+    /**
+     * Находился ли робот у цели в отсчётах.
+     */
+    private final boolean[] atTargets = new boolean[BUFFER_CAPACITY];
+    /**
+     * Число опубликованных отсчётов. Записывается только публикующим потоком.
+     */
+    private final AtomicLong published = new AtomicLong();
+    /**
+     * Число обработанных отсчётов. Записывается только фоновым потоком.
+     */
+    private final AtomicLong consumed = new AtomicLong();
+    /**
+     * Число отброшенных из-за переполнения отсчётов.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Сетка занятости, изменяется только фоновым потоком.
+     */
+    private final OccupancyGrid grid;
+    /**
+     * Статистика траекторий по номерам роботов.
+     */
+    private final TrajectoryStats[] stats;
+    /**
+     * Нормированные веса сетки для построения изображения.
+     */
+    private final float[] normalized;
+    /**
+     * Два изображения тепловой карты: одно отображается, другое перестраивается.
+     */
+    private final BufferedImage[] images = new BufferedImage[2];
+    /**
+     * Последнее готовое изображение тепловой карты.
+     */
+    private volatile BufferedImage heatmap;
+    /**
+     * Нужно ли перестраивать изображение тепловой карты.
+     */
+    private volatile boolean renderingEnabled;
+    /**
+     * Фоновый поток обработки; {@code null}, если аналитика остановлена.
+     */
+    private volatile Thread worker;
+
+    /**
+     * Создаёт аналитику.
+     *
+     * @param robotCount число роботов
+     * @param grid       сетка занятости
+     */
+    public TrajectoryAnalytics(int robotCount, OccupancyGrid grid) {
+        this.grid = grid;
+        this.stats = new TrajectoryStats[robotCount];
+        for (int i = 0; i < robotCount; i++) {
+            stats[i] = new TrajectoryStats();
+        }
+        this.normalized = new float[grid.getColumns() * grid.getRows()];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = new BufferedImage(grid.getColumns(), grid.getRows(), BufferedImage.TYPE_INT_ARGB);
+        }
+        this.heatmap = images[0];
+    }
+
+    /**
+     * Публикует положение робота на очередном шаге модели.
+     * Не блокирует и не выделяет память.
+     *
+     * @param robotId  номер робота
+     * @param x        координата X робота
+     * @param y        координата Y робота
+     * @param targetX  координата X цели
+     * @param targetY  координата Y цели
+     * @param atTarget находится ли робот у цели по критерию модели; по этому признаку
+     *                 статистика считает цель достигнутой
+     * @param time     время модели в миллисекундах
+     */
+    public void submit(int robotId, double x, double y, double targetX, double targetY,
+                       boolean atTarget, long time) {
+        long sequence = published.get();
+        if (sequence - consumed.get() >= BUFFER_CAPACITY) {
+            dropped.incrementAndGet();
+            return;
+        }
+        int index = (int) sequence & (BUFFER_CAPACITY - 1);
+        robotIds[index] = robotId;
+        times[index] = time;
+        coordinates[index * 4] = x;
+        coordinates[index * 4 + 1] = y;
+        coordinates[index * 4 + 2] = targetX;
+        coordinates[index * 4 + 3] = targetY;
+        atTargets[index] = atTarget;
+        published.lazySet(sequence + 1);
+    }
+
+    /**
+     * Запускает фоновый поток обработки, если он ещё не запущен.
+     */
+    public synchronized void start() {
+        if (worker == null) {
+            worker = Thread.ofPlatform().daemon().name("trajectory analytics").start(this::run);
+        }
+    }
+
+    /**
+     * Включает или выключает перестроение изображения тепловой карты.
+     * Пока оно выключено, фоновый поток только обрабатывает отсчёты.
+     * После включения изображение перестраивается без ожидания очередного периода.
+     *
+     * @param enabled перестраивать ли изображение
+     */
+    public void setRenderingEnabled(boolean enabled) {
+        renderingEnabled = enabled;
+        Thread current = worker;
+        if (enabled && current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    /**
+     * Останавливает фоновый поток обработки и дожидается его завершения,
+     * чтобы после повторного запуска буфер читал только один поток.
+     * Накопленные данные сохраняются до следующего запуска.
+     */
+    public synchronized void stop() {
+        if (worker == null) {
+            return;
+        }
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+    }
+
+    /**
+     * Цикл фонового потока: обрабатывает отсчёты и, пока отрисовка включена,
+     * перестраивает тепловую карту не чаще одного раза за период.
+     */
+    private void run() {
+        long nextRender = System.nanoTime();
+        long rendered = -1;
+        while (!Thread.currentThread().isInterrupted()) {
+            boolean idle = drain() == 0;
+            long now = System.nanoTime();
+            long processed = consumed.get();
+            if (renderingEnabled && processed != rendered && now - nextRender >= 0) {
+                render();
+                rendered = processed;
+                nextRender = now + RENDER_PERIOD * 1_000_000;
+            }
+            if (idle) {
+                LockSupport.parkNanos(IDLE_PARK);
+            }
+        }
+    }
+
+    /**
+     * Обрабатывает все опубликованные отсчёты.
+     *
+     * @return число обработанных отсчётов
+     */
+    private int drain() {
+        long start = consumed.get();
+        long end = published.get();
+        for (long sequence = start; sequence < end; sequence++) {
+            int index = (int) sequence & (BUFFER_CAPACITY - 1);
+            int robotId = robotIds[index];
+            long time = times[index];
+            double x = coordinates[index * 4];
+            double y = coordinates[index * 4 + 1];
+            grid.add(x, y, time);
+            if (robotId >= 0 && robotId < stats.length) {
+                stats[robotId].update(x, y, coordinates[index * 4 + 2], coordinates[index * 4 + 3],
+                        atTargets[index], time);
+            }
+            consumed.lazySet(sequence + 1);
+        }
+        return (int) (end - start);
+    }
+
+    /**
+     * Перестраивает изображение тепловой карты в свободном буфере и публикует его.
+     * Цвет ячейки меняется от прозрачного синего к красному по мере роста веса.
+     */
+    private void render() {
+        grid.normalizedWeights(normalized);
+        BufferedImage image = images[0] == heatmap ? images[1] : images[0];
+        int columns = grid.getColumns();
+        for (int row = 0; row < grid.getRows(); row++) {
+            for (int column = 0; column < columns; column++) {
+                float weight = normalized[row * columns + column];
+                int alpha = (int) (Math.sqrt(weight) * 200);
+                int red = (int) (weight * 255);
+                int blue = 255 - red;
+                image.setRGB(column, row, alpha << 24 | red << 16 | blue);
+            }
+        }
+        heatmap = image;
+    }
+
+    /**
+     * Возвращает последнее построенное изображение тепловой карты.
+     * Одна точка изображения соответствует одной ячейке сетки.
+     *
+     * @return изображение тепловой карты
+     */
+    public BufferedImage getHeatmap() {
+        return heatmap;
+    }
+
+    /**
+     * @return размер ячейки сетки в пикселях
+     */
+    public int getCellSize() {
+        return grid.getCellSize();
+    }
+
+    /**
+     * Возвращает копию статистики траектории робота.
+     *
+     * @param robotId номер робота
+     * @return статистика траектории
+     */
+    public TrajectoryStats getStats(int robotId) {
+        return stats[robotId].copy();
+    }
+
+    /**
+     * @return число отсчётов, отброшенных из-за переполнения буфера
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,172 @@
+package analytics;
+
+/**
+ * Статистика траектории одного робота: длина пройденного пути,
+ * время достижения целей и эффективность пути (отношение расстояния
+ * по прямой к фактически пройденному). Обновление и копирование
+ * синхронизированы, поэтому фоновый поток аналитики может обновлять
+ * статистику, пока поток интерфейса снимает с неё копию через {@link #copy()};
+ * сами копии читаются без синхронизации и не должны изменяться.
+ */
+public class TrajectoryStats {
+
+    /**
+     * Общая длина пройденного пути в пикселях.
+     */
+    private double totalPathLength;
+    /**
+     * Число достигнутых целей.
+     */
+    private long targetsReached;
+    /**
+     * Суммарное время достижения целей в миллисекундах.
+     */
+    private long totalTimeToTarget;
+    /**
+     * Наименьшее время достижения цели в миллисекундах.
+     */
+    private long minTimeToTarget = Long.MAX_VALUE;
+    /**
+     * Наибольшее время достижения цели в миллисекундах.
+     */
+    private long maxTimeToTarget;
+    /**
+     * Сумма эффективностей пути по достигнутым целям.
+     */
+    private double totalEfficiency;
+
+    /**
+     * Последняя известная координата X робота, NaN до первого шага.
+     */
+    private double lastX = Double.NaN;
+    /**
+     * Последняя известная координата Y робота.
+     */
+    private double lastY;
+    /**
+     * Координата X текущей цели.
+     */
+    private double targetX = Double.NaN;
+    /**
+     * Координата Y текущей цели.
+     */
+    private double targetY;
+    /**
+     * Время назначения текущей цели.
+     */
+    private long targetSince;
+    /**
+     * Путь, пройденный с момента назначения текущей цели.
+     */
+    private double pathSinceTarget;
+    /**
+     * Расстояние по прямой от робота до цели в момент её назначения.
+     */
+    private double straightDistance;
+    /**
+     * Достигнута ли текущая цель.
+     */
+    private boolean reached;
+
+    /**
+     * Учитывает очередной шаг робота.
+     *
+     * @param x        координата X робота
+     * @param y        координата Y робота
+     * @param targetX  координата X цели
+     * @param targetY  координата Y цели
+     * @param atTarget находится ли робот у цели по критерию модели
+     * @param time     время модели в миллисекундах
+     */
+    synchronized void update(double x, double y, double targetX, double targetY, boolean atTarget, long time) {
+        if (!Double.isNaN(lastX)) {
+            double step = Math.hypot(x - lastX, y - lastY);
+            totalPathLength += step;
+            pathSinceTarget += step;
+        }
+        lastX = x;
+        lastY = y;
+        if (targetX != this.targetX || targetY != this.targetY) {
+            this.targetX = targetX;
+            this.targetY = targetY;
+            targetSince = time;
+            pathSinceTarget = 0;
+            straightDistance = Math.hypot(targetX - x, targetY - y);
+            reached = atTarget;
+        }
+        if (reached || !atTarget) {
+            return;
+        }
+        reached = true;
+        long elapsed = time - targetSince;
+        targetsReached++;
+        totalTimeToTarget += elapsed;
+        minTimeToTarget = Math.min(minTimeToTarget, elapsed);
+        maxTimeToTarget = Math.max(maxTimeToTarget, elapsed);
+        totalEfficiency += pathSinceTarget > 0 ? Math.min(1, straightDistance / pathSinceTarget) : 1;
+    }
+
+    /**
+     * @return копия статистики для чтения из другого потока
+     */
+    public synchronized TrajectoryStats copy() {
+        TrajectoryStats copy = new TrajectoryStats();
+        copy.totalPathLength = totalPathLength;
+        copy.targetsReached = targetsReached;
+        copy.totalTimeToTarget = totalTimeToTarget;
+        copy.minTimeToTarget = minTimeToTarget;
+        copy.maxTimeToTarget = maxTimeToTarget;
+        copy.totalEfficiency = totalEfficiency;
+        copy.pathSinceTarget = pathSinceTarget;
+        return copy;
+    }
+
+    /**
+     * @return общая длина пройденного пути в пикселях
+     */
+    public double getTotalPathLength() {
+        return totalPathLength;
+    }
+
+    /**
+     * @return путь, пройденный к текущей цели, в пикселях
+     */
+    public double getPathSinceTarget() {
+        return pathSinceTarget;
+    }
+
+    /**
+     * @return число достигнутых целей
+     */
+    public long getTargetsReached() {
+        return targetsReached;
+    }
+
+    /**
+     * @return среднее время достижения цели в миллисекундах или 0, если целей не было
+     */
+    public double getMeanTimeToTarget() {
+        return targetsReached == 0 ? 0 : (double) totalTimeToTarget / targetsReached;
+    }
+
+    /**
+     * @return наименьшее время достижения цели в миллисекундах или 0, если целей не было
+     */
+    public long getMinTimeToTarget() {
+        return targetsReached == 0 ? 0 : minTimeToTarget;
+    }
+
+    /**
+     * @return наибольшее время достижения цели в миллисекундах
+     */
+    public long getMaxTimeToTarget() {
+        return maxTimeToTarget;
+    }
+
+    /**
+     * @return средняя эффективность пути в диапазоне [0, 1] или 0, если целей не было
+     */
+    public double getMeanEfficiency() {
+        return targetsReached == 0 ? 0 : totalEfficiency / targetsReached;
+    }
+}
@@ -0,0 +1,160 @@
+package control;
+
+/**
+ * Очередь команд управления роботом с отметками времени.
+ * Хранит команды в кольцевом буфере, упорядоченном по времени вступления
+ * в силу: ещё не доставленные роботу команды и недавнюю историю уже
+ * применённых, которая нужна предсказателям состояния.
+ * Команды адресуются абсолютными позициями (номером добавления),
+ * поэтому удаление старых команд не сдвигает позиции, запомненные в курсорах.
+ * Добавление, очистка истории и продвижение курсора выполняются
+ * за амортизированное O(1).
+ */
+public class CommandQueue {
+
+    /**
+     * Время вступления команд в силу.
+     */
+    private final long[] applyAt;
+    /**
+     * Линейная скорость в командах.
+     */
+    private final double[] velocity;
+    /**
+     * Угловая скорость в командах.
+     */
+    private final double[] angularVelocity;
+    /**
+     * Маска для вычисления индекса в кольцевом буфере.
+     */
+    private final int mask;
+    /**
+     * Абсолютная позиция самой старой хранимой команды.
+     */
+    private long first;
+    /**
+     * Абсолютная позиция, которую получит следующая команда.
+     */
+    private long end;
+
+    /**
+     * Создаёт пустую очередь. До поступления первой команды робот стоит на месте.
+     *
+     * @param capacity ёмкость буфера, степень двойки
+     */
+    public CommandQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ёмкость должна быть степенью двойки: " + capacity);
+        }
+        applyAt = new long[capacity];
+        velocity = new double[capacity];
+        angularVelocity = new double[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Добавляет команду. Команда не может вступить в силу раньше
+     * ранее добавленной, поэтому её время при необходимости сдвигается.
+     * При переполнении буфера отбрасывается самая старая команда.
+     *
+     * @param time            время вступления команды в силу
+     * @param velocity        линейная скорость
+     * @param angularVelocity угловая скорость
+     */
+    public void push(long time, double velocity, double angularVelocity) {
+        if (end > first) {
+            time = Math.max(time, applyAt[index(end - 1)]);
+        }
+        if (end - first == applyAt.length) {
+            first++;
+        }
+        int tail = index(end);
+        applyAt[tail] = time;
+        this.velocity[tail] = velocity;
+        this.angularVelocity[tail] = angularVelocity;
+        end++;
+    }
+
+    /**
+     * Удаляет команды, которые перестали действовать к моменту {@code time}.
+     * Команда, действующая в этот момент, сохраняется.
+     *
+     * @param time самый ранний момент, который ещё будут запрашивать курсоры
+     */
+    public void discardBefore(long time) {
+        while (end - first > 1 && applyAt[index(first + 1)] <= time) {
+            first++;
+        }
+    }
+
+    /**
+     * Создаёт курсор, отслеживающий действующую команду при движении времени вперёд.
+     *
+     * @return новый курсор, не указывающий ни на одну команду
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Переводит абсолютную позицию в индекс буфера.
+     *
+     * @param position абсолютная позиция команды
+     * @return индекс в массивах буфера
+     */
+    private int index(long position) {
+        return (int) (position & mask);
+    }
+
+    /**
+     * Курсор действующей команды. Время, передаваемое в {@link #advanceTo(long)},
+     * не должно убывать; тогда каждое продвижение стоит амортизированное O(1).
+     */
+    public class Cursor {
+
+        /**
+         * Абсолютная позиция действующей команды или -1, если команд ещё не было.
+         */
+        private long active = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Продвигает курсор к последней команде, вступившей в силу не позже заданного момента.
+         *
+         * @param time момент времени модели
+         * @return есть ли действующая команда
+         */
+        public boolean advanceTo(long time) {
+            if (active < first && end > first && applyAt[index(first)] <= time) {
+                active = first;
+            }
+            while (active + 1 < end && active + 1 >= first && applyAt[index(active + 1)] <= time) {
+                active++;
+            }
+            return hasCommand();
+        }
+
+        /**
+         * @return указывает ли курсор на хранимую команду
+         */
+        public boolean hasCommand() {
+            return active >= first && active < end;
+        }
+
+        /**
+         * @return линейная скорость действующей команды
+         */
+        public double velocity() {
+            return velocity[index(active)];
+        }
+
+        /**
+         * @return угловая скорость действующей команды
+         */
+        public double angularVelocity() {
+            return angularVelocity[index(active)];
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package control;
+
+import java.util.SplittableRandom;
+
+/**
+ * Канал связи с одним роботом, моделирующий задержки телеметрии и команд.
+ * Хранит собственные кольцевые буферы телеметрии и команд, поэтому
+ * стоимость шага не зависит от числа роботов.
+ * Не потокобезопасен: используется из потока обновления модели.
+ */
+public class DelayedRobotLink {
+
+    /**
+     * Параметры задержек.
+     */
+    private final LatencyConfig config;
+    /**
+     * Канал телеметрии от робота к контроллеру.
+     */
+    private final TelemetryChannel telemetry;
+    /**
+     * Команды от контроллера к роботу.
+     */
+    private final CommandQueue commands;
+    /**
+     * Курсор команды, которую выполняет робот.
+     */
+    private final CommandQueue.Cursor actuator;
+    /**
+     * Источник случайной добавки к задержкам.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Создаёт канал связи.
+     *
+     * @param config     параметры задержек
+     * @param tickPeriod период шага модели в миллисекундах
+     * @param seed       начальное значение генератора случайной добавки
+     */
+    public DelayedRobotLink(LatencyConfig config, long tickPeriod, long seed) {
+        this.config = config;
+        int capacity = config.bufferCapacity(tickPeriod);
+        this.telemetry = new TelemetryChannel(capacity);
+        this.commands = new CommandQueue(capacity);
+        this.actuator = commands.cursor();
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Отправляет контроллеру фактическое состояние робота.
+     *
+     * @param state состояние робота, его время считается временем отправки
+     */
+    public void publishState(RobotState state) {
+        telemetry.send(state, state.time() + config.telemetryDelay() + jitter());
+    }
+
+    /**
+     * Возвращает последнее состояние робота, известное контроллеру.
+     *
+     * @param now текущее время модели
+     * @return последнее доставленное состояние или {@code null}, если телеметрия ещё не поступала
+     */
+    public RobotState observe(long now) {
+        return telemetry.receive(now);
+    }
+
+    /**
+     * Отправляет роботу команду.
+     *
+     * @param now             текущее время модели
+     * @param velocity        линейная скорость
+     * @param angularVelocity угловая скорость
+     */
+    public void sendCommand(long now, double velocity, double angularVelocity) {
+        commands.push(now + config.commandDelay() + jitter(), velocity, angularVelocity);
+    }
+
+    /**
+     * Возвращает момент, когда до робота дойдёт команда, отправленная сейчас,
+     * без учёта случайной добавки.
+     *
+     * @param now текущее время модели
+     * @return ожидаемое время вступления команды в силу
+     */
+    public long commandArrival(long now) {
+        return now + config.commandDelay();
+    }
+
+    /**
+     * Возвращает команду, действующую на роботе в текущий момент,
+     * и удаляет историю, которая уже не понадобится предсказателям.
+     * Моменты {@code now} в последовательных вызовах не должны убывать;
+     * тогда вызов стоит амортизированное O(1).
+     *
+     * @param now текущее время модели
+     * @return курсор действующей команды; {@link CommandQueue.Cursor#hasCommand()}
+     * ложно, если команд ещё не было
+     */
+    public CommandQueue.Cursor activeCommand(long now) {
+        commands.discardBefore(now - config.telemetryDelay() - config.jitter());
+        actuator.advanceTo(now);
+        return actuator;
+    }
+
+    /**
+     * @return очередь команд робота
+     */
+    public CommandQueue commands() {
+        return commands;
+    }
+
+    /**
+     * @return случайная добавка к задержке
+     */
+    private long jitter() {
+        return config.jitter() == 0 ? 0 : random.nextLong(config.jitter() + 1);
+    }
+}
@@ -0,0 +1,202 @@
+package control;
+
+import java.util.Arrays;
+
+/**
+ * Предсказатель по внутренней модели (схема предиктора Смита).
+ * Ведёт собственную модель робота, которая без задержек исполняет
+ * отправленные команды и опережает фактического робота на время
+ * доставки команды, и помнит её недавние положения.
+ * <p>
+ * На каждом вызове модель продвигается на один-два шага, а расхождение
+ * с телеметрией устраняется жёстким преобразованием: смещение модели
+ * от её положения в момент измерения поворачивается на разницу курсов
+ * и прикладывается к измеренному состоянию. Движение по дуге не зависит
+ * от начального положения и курса, поэтому результат совпадает с прогоном
+ * модели от измеренного состояния, а стоимость вызова - амортизированное O(1)
+ * без создания промежуточных объектов.
+ * <p>
+ * Если момент измерения уже вытеснен из истории (первый вызов или пропуск
+ * телеметрии длиннее окна), модель заново начинается с измеренного состояния,
+ * и этот вызов стоит O(длина окна / шаг).
+ */
+public class InternalModelPredictor implements StatePredictor {
+
+    /**
+     * Очередь команд робота.
+     */
+    private final CommandQueue commands;
+    /**
+     * Курсор команды, действующей на модели.
+     */
+    private CommandQueue.Cursor cursor;
+    /**
+     * Период шага модели в миллисекундах.
+     */
+    private final long step;
+    /**
+     * Маска для вычисления индекса в истории.
+     */
+    private final int mask;
+    /**
+     * Время записей истории; {@link Long#MIN_VALUE} для пустых записей.
+     */
+    private final long[] historyTime;
+    /**
+     * Абсциссы модели в истории.
+     */
+    private final double[] historyX;
+    /**
+     * Ординаты модели в истории.
+     */
+    private final double[] historyY;
+    /**
+     * Направления модели в истории.
+     */
+    private final double[] historyDirection;
+    /**
+     * Время модели, кратное периоду шага.
+     */
+    private long modelTime;
+    /**
+     * Абсцисса модели.
+     */
+    private double modelX;
+    /**
+     * Ордината модели.
+     */
+    private double modelY;
+    /**
+     * Направление модели.
+     */
+    private double modelDirection;
+
+    /**
+     * Создаёт предсказатель.
+     *
+     * @param commands очередь команд робота, включая уже отправленные,
+     *                 но ещё не вступившие в силу
+     * @param step     период шага модели в миллисекундах; время измерений должно быть ему кратно
+     * @param capacity число хранимых положений модели, степень двойки; должно покрывать
+     *                 суммарную задержку, см. {@link LatencyConfig#bufferCapacity(long)}
+     */
+    public InternalModelPredictor(CommandQueue commands, long step, int capacity) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("Шаг должен быть положительным: " + step);
+        }
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ёмкость должна быть степенью двойки: " + capacity);
+        }
+        this.commands = commands;
+        this.step = step;
+        this.mask = capacity - 1;
+        this.historyTime = new long[capacity];
+        this.historyX = new double[capacity];
+        this.historyY = new double[capacity];
+        this.historyDirection = new double[capacity];
+        Arrays.fill(historyTime, Long.MIN_VALUE);
+    }
+
+    @Override
+    public RobotState predict(RobotState observed, long time) {
+        int slot = slot(observed.time());
+        if (historyTime[slot] != observed.time()) {
+            restart(observed);
+            slot = slot(observed.time());
+        }
+        // положение модели в момент измерения запоминается до продвижения:
+        // при длинном горизонте предсказания запись истории успевает перезаписаться
+        double anchorX = historyX[slot];
+        double anchorY = historyY[slot];
+        double anchorDirection = historyDirection[slot];
+        while (modelTime + step <= time) {
+            advance(step);
+            record();
+        }
+        double x = modelX;
+        double y = modelY;
+        double direction = modelDirection;
+        if (modelTime < time) {
+            long duration = time - modelTime;
+            double v = velocity();
+            double w = angularVelocity();
+            x = RobotKinematics.moveX(modelX, modelDirection, v, w, duration);
+            y = RobotKinematics.moveY(modelY, modelDirection, v, w, duration);
+            direction = RobotKinematics.moveDirection(modelDirection, w, duration);
+        }
+
+        double turn = observed.direction() - anchorDirection;
+        double dx = x - anchorX;
+        double dy = y - anchorY;
+        double cos = Math.cos(turn);
+        double sin = Math.sin(turn);
+        return new RobotState(
+                observed.x() + dx * cos - dy * sin,
+                observed.y() + dx * sin + dy * cos,
+                RobotKinematics.asNormalizedRadians(direction + turn),
+                Math.max(time, modelTime));
+    }
+
+    /**
+     * Начинает модель заново с измеренного состояния.
+     *
+     * @param observed измеренное состояние
+     */
+    private void restart(RobotState observed) {
+        cursor = commands.cursor();
+        modelTime = observed.time();
+        modelX = observed.x();
+        modelY = observed.y();
+        modelDirection = observed.direction();
+        Arrays.fill(historyTime, Long.MIN_VALUE);
+        record();
+    }
+
+    /**
+     * Продвигает модель на заданное время с действующей командой.
+     *
+     * @param duration длительность в миллисекундах
+     */
+    private void advance(long duration) {
+        double v = velocity();
+        double w = angularVelocity();
+        double direction = modelDirection;
+        modelX = RobotKinematics.moveX(modelX, direction, v, w, duration);
+        modelY = RobotKinematics.moveY(modelY, direction, v, w, duration);
+        modelDirection = RobotKinematics.moveDirection(direction, w, duration);
+        modelTime += duration;
+    }
+
+    /**
+     * Запоминает текущее положение модели в истории.
+     */
+    private void record() {
+        int slot = slot(modelTime);
+        historyTime[slot] = modelTime;
+        historyX[slot] = modelX;
+        historyY[slot] = modelY;
+        historyDirection[slot] = modelDirection;
+    }
+
+    /**
+     * @return линейная скорость команды, действующей на модели, или 0 до первой команды
+     */
+    private double velocity() {
+        return cursor.advanceTo(modelTime) ? cursor.velocity() : 0;
+    }
+
+    /**
+     * @return угловая скорость команды, действующей на модели, или 0 до первой команды
+     */
+    private double angularVelocity() {
+        return cursor.advanceTo(modelTime) ? cursor.angularVelocity() : 0;
+    }
+
+    /**
+     * @param time время, кратное периоду шага
+     * @return индекс записи истории для этого времени
+     */
+    private int slot(long time) {
+        return (int) ((time / step) & mask);
+    }
+}
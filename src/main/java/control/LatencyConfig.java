@@ -0,0 +1,61 @@
+package control;
+
+/**
+ * Параметры моделирования задержек в канале управления роботом.
+ * Все величины задаются в миллисекундах времени модели.
+ *
+ * @param telemetryDelay задержка доставки телеметрии от робота к контроллеру
+ * @param commandDelay   задержка доставки команды от контроллера к роботу
+ * @param jitter         максимальная случайная добавка к каждой из задержек
+ */
+public record LatencyConfig(long telemetryDelay, long commandDelay, long jitter) {
+
+    /**
+     * Конфигурация без задержек.
+     */
+    public static final LatencyConfig NONE = new LatencyConfig(0, 0, 0);
+
+    /**
+     * Проверяет параметры.
+     *
+     * @throws IllegalArgumentException если какая-либо задержка отрицательна
+     */
+    public LatencyConfig {
+        if (telemetryDelay < 0 || commandDelay < 0 || jitter < 0) {
+            throw new IllegalArgumentException("Задержки не могут быть отрицательными");
+        }
+    }
+
+    /**
+     * Читает параметры из системных свойств {@code robots.latency.telemetry},
+     * {@code robots.latency.command} и {@code robots.latency.jitter}.
+     * Отсутствующие свойства считаются равными нулю.
+     *
+     * @return конфигурация задержек
+     */
+    public static LatencyConfig fromSystemProperties() {
+        return new LatencyConfig(
+                Long.getLong("robots.latency.telemetry", 0),
+                Long.getLong("robots.latency.command", 0),
+                Long.getLong("robots.latency.jitter", 0));
+    }
+
+    /**
+     * @return включено ли моделирование задержек
+     */
+    public boolean isEnabled() {
+        return telemetryDelay > 0 || commandDelay > 0 || jitter > 0;
+    }
+
+    /**
+     * Вычисляет ёмкость кольцевого буфера, достаточную для хранения
+     * всех сообщений, находящихся в пути, при заданном периоде шага модели.
+     *
+     * @param tickPeriod период шага модели в миллисекундах
+     * @return ёмкость, равная степени двойки
+     */
+    public int bufferCapacity(long tickPeriod) {
+        long inFlight = (telemetryDelay + commandDelay + 2 * jitter) / Math.max(1, tickPeriod) + 4;
+        return Integer.highestOneBit((int) Math.min(inFlight, 1 << 20) * 2 - 1);
+    }
+}
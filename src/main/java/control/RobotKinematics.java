@@ -0,0 +1,125 @@
+package control;
+
+/**
+ * Модель движения робота: перемещение по дуге окружности
+ * с постоянными линейной и угловой скоростями.
+ * Используется как самой моделью, так и предсказателями состояния.
+ */
+public final class RobotKinematics {
+
+    /**
+     * Максимальная линейная скорость робота.
+     */
+    public static final double MAX_VELOCITY = 0.1;
+    /**
+     * Максимальная угловая скорость робота.
+     */
+    public static final double MAX_ANGULAR_VELOCITY = 0.001;
+
+    private RobotKinematics() {
+    }
+
+    /**
+     * Ограничивает значение заданным диапазоном.
+     *
+     * @param value исходное значение
+     * @param min   минимально допустимое значение
+     * @param max   максимально допустимое значение
+     * @return значение, приведённое к диапазону [min, max]
+     */
+    public static double applyLimits(double value, double min, double max) {
+        if (value < min) return min;
+        if (value > max) return max;
+        return value;
+    }
+
+    /**
+     * Нормализует угол в диапазон [0, 2π).
+     *
+     * @param angle исходный угол в радианах
+     * @return нормализованный угол
+     */
+    public static double asNormalizedRadians(double angle) {
+        while (angle < 0) {
+            angle += 2 * Math.PI;
+        }
+        while (angle >= 2 * Math.PI) {
+            angle -= 2 * Math.PI;
+        }
+        return angle;
+    }
+
+    /**
+     * Вычисляет состояние робота после движения с заданными скоростями.
+     * Скорости предварительно ограничиваются допустимыми значениями.
+     *
+     * @param state           исходное состояние
+     * @param velocity        линейная скорость
+     * @param angularVelocity угловая скорость
+     * @param duration        длительность перемещения в миллисекундах
+     * @return новое состояние, время которого сдвинуто на {@code duration}
+     */
+    public static RobotState move(RobotState state, double velocity, double angularVelocity, long duration) {
+        return new RobotState(
+                moveX(state.x(), state.direction(), velocity, angularVelocity, duration),
+                moveY(state.y(), state.direction(), velocity, angularVelocity, duration),
+                moveDirection(state.direction(), angularVelocity, duration),
+                state.time() + duration);
+    }
+
+    /**
+     * Вычисляет абсциссу робота после движения, не создавая объектов.
+     * Скорости предварительно ограничиваются допустимыми значениями.
+     *
+     * @param x               исходная абсцисса
+     * @param direction       исходное направление
+     * @param velocity        линейная скорость
+     * @param angularVelocity угловая скорость
+     * @param duration        длительность перемещения в миллисекундах
+     * @return новая абсцисса
+     */
+    public static double moveX(double x, double direction, double velocity, double angularVelocity, long duration) {
+        velocity = applyLimits(velocity, 0, MAX_VELOCITY);
+        angularVelocity = applyLimits(angularVelocity, -MAX_ANGULAR_VELOCITY, MAX_ANGULAR_VELOCITY);
+        double newX = x + velocity / angularVelocity * (Math.sin(direction + angularVelocity * duration) - Math.sin(direction));
+        if (!Double.isFinite(newX)) {
+            newX = x + velocity * duration * Math.cos(direction);
+        }
+        return newX;
+    }
+
+    /**
+     * Вычисляет ординату робота после движения, не создавая объектов.
+     * Скорости предварительно ограничиваются допустимыми значениями.
+     *
+     * @param y               исходная ордината
+     * @param direction       исходное направление
+     * @param velocity        линейная скорость
+     * @param angularVelocity угловая скорость
+     * @param duration        длительность перемещения в миллисекундах
+     * @return новая ордината
+     */
+    public static double moveY(double y, double direction, double velocity, double angularVelocity, long duration) {
+        velocity = applyLimits(velocity, 0, MAX_VELOCITY);
+        angularVelocity = applyLimits(angularVelocity, -MAX_ANGULAR_VELOCITY, MAX_ANGULAR_VELOCITY);
+        double newY = y - velocity / angularVelocity * (Math.cos(direction + angularVelocity * duration) - Math.cos(direction));
+        if (!Double.isFinite(newY)) {
+            newY = y + velocity * duration * Math.sin(direction);
+        }
+        return newY;
+    }
+
+    /**
+     * Вычисляет направление робота после поворота.
+     * Угловая скорость предварительно ограничивается допустимым значением.
+     *
+     * @param direction       исходное направление
+     * @param angularVelocity угловая скорость
+     * @param duration        длительность поворота в миллисекундах
+     * @return новое направление в диапазоне [0, 2π)
+     */
+    public static double moveDirection(double direction, double angularVelocity, long duration) {
+        angularVelocity = applyLimits(angularVelocity, -MAX_ANGULAR_VELOCITY, MAX_ANGULAR_VELOCITY);
+        return asNormalizedRadians(direction + angularVelocity * duration);
+    }
+}
@@ -0,0 +1,12 @@
+package control;
+
+/**
+ * Снимок состояния робота в момент времени модели.
+ *
+ * @param x         координата X в пикселях
+ * @param y         координата Y в пикселях
+ * @param direction направление в радианах
+ * @param time      время модели в миллисекундах, к которому относится снимок
+ */
+public record RobotState(double x, double y, double direction, long time) {
+}
@@ -0,0 +1,23 @@
+package control;
+
+/**
+ * Предсказатель состояния робота для контроллеров, работающих
+ * с задержанной телеметрией и задержанными командами.
+ * Вызывается на каждом шаге модели для каждого робота, поэтому
+ * реализации должны укладываться в амортизированное O(1) на вызов
+ * и не зависеть от длины окна задержки.
+ */
+@FunctionalInterface
+public interface StatePredictor {
+
+    /**
+     * Оценивает состояние робота в заданный момент.
+     * Моменты {@code time} в последовательных вызовах не должны убывать.
+     *
+     * @param observed последнее полученное по телеметрии состояние
+     * @param time     момент, на который нужна оценка; обычно это момент,
+     *                 когда до робота дойдёт отправляемая сейчас команда
+     * @return оценка состояния на момент {@code time}
+     */
+    RobotState predict(RobotState observed, long time);
+}
@@ -0,0 +1,91 @@
+package control;
+
+/**
+ * Канал телеметрии с задержкой: кольцевой буфер снимков состояния,
+ * помеченных временем доставки. Доставка упорядочена, как в реальном
+ * последовательном канале: снимок не может обогнать отправленный раньше.
+ * Все операции выполняются за амортизированное O(1).
+ */
+public class TelemetryChannel {
+
+    /**
+     * Снимки состояния, находящиеся в пути.
+     */
+    private final RobotState[] states;
+    /**
+     * Время доставки соответствующих снимков.
+     */
+    private final long[] deliverAt;
+    /**
+     * Маска для вычисления индекса в кольцевом буфере.
+     */
+    private final int mask;
+    /**
+     * Индекс самого старого снимка в пути.
+     */
+    private int head;
+    /**
+     * Число снимков в пути.
+     */
+    private int size;
+    /**
+     * Время доставки последнего отправленного снимка.
+     */
+    private long lastDeliverAt = Long.MIN_VALUE;
+    /**
+     * Последний доставленный снимок.
+     */
+    private RobotState latest;
+
+    /**
+     * Создаёт канал.
+     *
+     * @param capacity ёмкость буфера, степень двойки
+     */
+    public TelemetryChannel(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ёмкость должна быть степенью двойки: " + capacity);
+        }
+        states = new RobotState[capacity];
+        deliverAt = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Отправляет снимок состояния. При переполнении буфера
+     * самый старый снимок в пути считается доставленным.
+     *
+     * @param state     снимок состояния
+     * @param deliverAt время доставки
+     */
+    public void send(RobotState state, long deliverAt) {
+        if (size == states.length) {
+            latest = states[head];
+            states[head] = null;
+            head = (head + 1) & mask;
+            size--;
+        }
+        lastDeliverAt = Math.max(lastDeliverAt, deliverAt);
+        int tail = (head + size) & mask;
+        states[tail] = state;
+        this.deliverAt[tail] = lastDeliverAt;
+        size++;
+    }
+
+    /**
+     * Доставляет все снимки, время доставки которых наступило,
+     * и возвращает самый свежий из доставленных.
+     *
+     * @param now текущее время модели
+     * @return последний доставленный снимок или {@code null}, если ещё ничего не доставлено
+     */
+    public RobotState receive(long now) {
+        while (size > 0 && deliverAt[head] <= now) {
+            latest = states[head];
+            states[head] = null;
+            head = (head + 1) & mask;
+            size--;
+        }
+        return latest;
+    }
+}
@@ -0,0 +1,66 @@
+package gui;
+
+import log.Logger;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Тренировочный запуск для построения статического архива CDS.
+ * Работает без графического окружения: устанавливает Nimbus, строит меню
+ * и внутренние окна приложения и отрисовывает их в изображение в памяти,
+ * не показывая на экране. Загруженные при этом классы записываются
+ * в список классов ({@code -XX:DumpLoadedClassList}), по которому затем
+ * строится архив ({@code -Xshare:dump}), см. профиль {@code cds} в pom.xml.
+ * <p>
+ * Классы самого главного окна и платформенного тулкита в список не попадают:
+ * для них нужен дисплей.
+ */
+final class CdsTraining {
+
+    private CdsTraining() {
+    }
+
+    /**
+     * Точка входа тренировочного запуска.
+     *
+     * @throws InterruptedException      если поток прерван во время ожидания
+     * @throws InvocationTargetException если построение окон завершилось ошибкой
+     */
+    static void main(String[] args) throws InterruptedException, InvocationTargetException {
+        try {
+            UIManager.setLookAndFeel("javax.swing.plaf.nimbus.NimbusLookAndFeel");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        SwingUtilities.invokeAndWait(() -> {
+            // пункты меню не выбираются, поэтому слушатель не нужен
+            render(new MenuBar(null).create());
+            render(new LogWindow(Logger.getDefaultLogSource()));
+            render(new GameWindow());
+            Logger.debug("Тренировочный запуск завершён");
+        });
+        System.exit(0);
+    }
+
+    /**
+     * Раскладывает и отрисовывает компонент в изображение в памяти,
+     * чтобы загрузились классы раскладки и отрисовки Nimbus.
+     *
+     * @param component компонент
+     */
+    private static void render(JComponent component) {
+        component.setSize(400, 400);
+        component.doLayout();
+        component.validate();
+        BufferedImage image = new BufferedImage(400, 400, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            component.printAll(g);
+        } finally {
+            g.dispose();
+        }
+    }
+}
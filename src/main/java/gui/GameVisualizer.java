@@ -1,12 +1,33 @@
 package gui;
 
+import analytics.OccupancyGrid;
+import analytics.TrajectoryAnalytics;
+import analytics.TrajectoryStats;
+import control.CommandQueue;
+import control.DelayedRobotLink;
+import control.InternalModelPredictor;
+import control.LatencyConfig;
+import control.RobotKinematics;
+import control.RobotState;
+import control.StatePredictor;
+import log.Logger;
+import perf.PerformanceMetrics;
+import world.HeapRobotWorld;
+import world.RobotRecordLayout;
+import world.RobotWorld;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Панель для визуализации и управления движением робота.
@@ -16,57 +37,122 @@ import java.util.TimerTask;
 public class GameVisualizer extends JPanel {
 
     /**
-     * Максимальная линейная скорость робота.
+     * Период шага модели в миллисекундах.
+     */
+    private static final long TICK_PERIOD = 10;
+    /**
+     * Расстояние до цели в пикселях, ближе которого контроллер считает цель достигнутой.
+     */
+    private static final double TARGET_RADIUS = 0.5;
+    /**
+     * Расстояние до цели в пикселях, в пределах которого достигнутая цель остаётся
+     * достигнутой. При задержках команда остановки доходит до робота с разбросом,
+     * и он проезжает лишнее; без запаса предсказанное положение остановившегося
+     * робота оказывалось бы дальше {@link #TARGET_RADIUS}, и контроллер снова трогал бы его.
+     * Больший запас оставлял бы робота дальше от цели: при разбросе 100 мс робот
+     * останавливается в 0.5 пикселя от цели, но флаг может один раз сброситься
+     * сразу после прибытия.
+     */
+    private static final double TARGET_HOLD_RADIUS = 3 * TARGET_RADIUS;
+    /**
+     * Параметры моделирования задержек телеметрии и команд.
+     */
+    private final LatencyConfig latencyConfig = LatencyConfig.fromSystemProperties();
+    /**
+     * Канал связи с роботом с задержками; {@code null}, если задержки не моделируются
+     * и контроллер видит точное состояние робота.
+     */
+    private final DelayedRobotLink link = latencyConfig.isEnabled()
+            ? new DelayedRobotLink(latencyConfig, TICK_PERIOD, 0)
+            : null;
+    /**
+     * Предсказатель состояния, компенсирующий задержки для контроллера;
+     * {@code null}, если задержки не моделируются.
      */
-    private static final double MAX_VELOCITY = 0.1;
+    private final StatePredictor predictor = link != null
+            ? new InternalModelPredictor(link.commands(), TICK_PERIOD, latencyConfig.bufferCapacity(TICK_PERIOD))
+            : null;
     /**
-     * Максимальная угловая скорость робота.
+     * Время модели в миллисекундах. Изменяется только потоком обновления модели.
      */
-    private static final double MAX_ANGULAR_VELOCITY = 0.001;
+    private long modelTime = 0;
     /**
      * Таймер для периодического обновления модели и перерисовки.
-     * Запускается в конструкторе и работает в фоновом потоке-демоне.
+     * Создаётся один раз и работает в фоновом потоке-демоне; все задачи
+     * выполняются в этом единственном потоке, поэтому шаг модели никогда
+     * не выполняется двумя потоками одновременно, даже после повторного запуска задач.
      */
     private final Timer timer = initTimer();
     /**
-     * Текущая координата X робота в пикселях.
+     * Задача перерисовки; {@code null}, пока панель не отображается.
      */
-    private volatile double robotPositionX = 100;
+    private TimerTask redrawTask;
     /**
-     * Текущая координата Y робота в пикселях.
+     * Задача обновления модели; {@code null}, пока панель не отображается.
      */
-    private volatile double robotPositionY = 100;
+    private TimerTask modelUpdateTask;
     /**
-     * Текущее направление робота в радианах.
+     * Освобождена ли панель вызовом {@link #dispose()}; после этого задачи
+     * на таймере больше не планируются.
      */
-    private volatile double robotDirection = 0;
+    private boolean disposed;
     /**
-     * Координата X цели, задаваемой пользователем.
+     * Номер управляемого робота в хранилище состояния.
      */
-    private volatile int targetPositionX = 150;
+    private static final int ROBOT = 0;
     /**
-     * Координата Y цели, задаваемой пользователем.
+     * Хранилище состояния робота: положение, направление, цель, скорости и флаги.
+     * По умолчанию находится в куче, системными свойствами может быть перенесено
+     * в память вне кучи или в отображённый в память файл (см. {@link RobotWorld}).
      */
-    private volatile int targetPositionY = 100;
+    private final RobotWorld world = createWorld();
+    /**
+     * Цель, заданная щелчком мыши и ещё не перенесённая в хранилище.
+     * Хранилище изменяет только поток модели, поэтому поток событий
+     * передаёт ему новую цель через эту ссылку.
+     */
+    private final AtomicReference<Point> requestedTarget = new AtomicReference<>();
+    /**
+     * Последнее решение контроллера о достижении цели, см. {@link #isAtTarget(RobotState)}.
+     * Из него же берутся флаг {@link RobotRecordLayout#FLAG_AT_TARGET} и признак
+     * достижения цели для аналитики, поэтому все они согласованы с поведением робота.
+     * Изменяется только потоком модели.
+     */
+    private boolean atTarget;
+    /**
+     * Показывать ли поверх поля оверлей с метриками производительности.
+     */
+    private volatile boolean performanceOverlayVisible = false;
+    /**
+     * Сводка, по которой построены строки оверлея; используется только в потоке отрисовки.
+     */
+    private String overlaySummary;
+    /**
+     * Строки оверлея с метриками.
+     */
+    private String[] overlayLines;
+    /**
+     * Аналитика траектории: тепловая карта занятости поля и статистика пути.
+     * Сетка из 256x256 ячеек по 8 пикселей с полураспадом 30 секунд модели.
+     */
+    private final TrajectoryAnalytics analytics =
+            new TrajectoryAnalytics(1, new OccupancyGrid(256, 256, 8, 30_000));
+    /**
+     * Показывать ли под роботом слой тепловой карты.
+     */
+    private volatile boolean heatmapVisible = false;
 
     /**
      * Конструктор панели.
-     * Настраивает таймер для обновления модели и перерисовки
-     * и добавляет слушатель мыши для задания цели.
+     * Добавляет слушатель мыши для задания цели. Таймеры обновления модели
+     * и перерисовки запускаются только при показе панели, см. {@link #addNotify()}.
      */
     public GameVisualizer() {
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                onRedrawEvent();
-            }
-        }, 0, 50);
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                onModelUpdateEvent();
-            }
-        }, 0, 10);
+        world.beginWrite();
+        world.setPose(ROBOT, 100, 100, 0);
+        world.setTarget(ROBOT, 150, 100);
+        world.setFlags(ROBOT, RobotRecordLayout.FLAG_ACTIVE);
+        world.publish();
         addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
@@ -75,6 +161,54 @@ public class GameVisualizer extends JPanel {
             }
         });
         setDoubleBuffered(true);
+        if (link != null) {
+            Logger.debug("Моделирование задержек: телеметрия " + latencyConfig.telemetryDelay()
+                    + " мс, команды " + latencyConfig.commandDelay()
+                    + " мс, разброс " + latencyConfig.jitter() + " мс");
+        }
+    }
+
+    /**
+     * Создаёт хранилище состояния робота по системным свойствам.
+     * Если отобразить файл мира в память не удалось, используется хранилище в куче.
+     *
+     * @return хранилище состояния
+     */
+    private static RobotWorld createWorld() {
+        try {
+            return RobotWorld.fromSystemProperties(ROBOT + 1);
+        } catch (IOException e) {
+            Logger.error("Не удалось открыть файл мира роботов: " + e.getMessage());
+            return new HeapRobotWorld(ROBOT + 1);
+        }
+    }
+
+    /**
+     * Сохраняет состояние робота в файл снимка. Снимок записывается в потоке модели
+     * между её шагами, поэтому он согласован; на время записи модель приостанавливается.
+     *
+     * @param file файл снимка
+     * @return результат записи; завершается исключением, если запись не удалась
+     */
+    public synchronized CompletableFuture<Void> writeWorldSnapshot(Path file) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        if (disposed) {
+            result.completeExceptionally(new IOException("Игровое поле закрыто"));
+            return result;
+        }
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                try {
+                    world.writeSnapshot(file);
+                    result.complete(null);
+                } catch (IOException | RuntimeException e) {
+                    // исключение не должно остановить поток таймера, в котором идёт модель
+                    result.completeExceptionally(e);
+                }
+            }
+        }, 0);
+        return result;
     }
 
     /**
@@ -116,37 +250,7 @@ public class GameVisualizer extends JPanel {
         double diffX = toX - fromX;
         double diffY = toY - fromY;
 
-        return asNormalizedRadians(Math.atan2(diffY, diffX));
-    }
-
-    /**
-     * Ограничивает значение заданным диапазоном.
-     *
-     * @param value исходное значение
-     * @param min   минимально допустимое значение
-     * @param max   максимально допустимое значение
-     * @return значение, приведённое к диапазону [min, max]
-     */
-    private static double applyLimits(double value, double min, double max) {
-        if (value < min) return min;
-        if (value > max) return max;
-        return value;
-    }
-
-    /**
-     * Нормализует угол в диапазон [0, 2π).
-     *
-     * @param angle исходный угол в радианах
-     * @return нормализованный угол
-     */
-    private static double asNormalizedRadians(double angle) {
-        while (angle < 0) {
-            angle += 2 * Math.PI;
-        }
-        while (angle >= 2 * Math.PI) {
-            angle -= 2 * Math.PI;
-        }
-        return angle;
+        return RobotKinematics.asNormalizedRadians(Math.atan2(diffY, diffX));
     }
 
     /**
@@ -187,12 +291,12 @@ public class GameVisualizer extends JPanel {
 
     /**
      * Устанавливает новую позицию цели по координатам точки.
+     * Цель попадает в хранилище на ближайшем шаге модели.
      *
      * @param p точка, в которую перемещается цель
      */
     protected void setTargetPosition(Point p) {
-        targetPositionX = p.x;
-        targetPositionY = p.y;
+        requestedTarget.set(new Point(p));
     }
 
     /**
@@ -200,7 +304,42 @@ public class GameVisualizer extends JPanel {
      * Вызывается таймером.
      */
     protected void onRedrawEvent() {
-        EventQueue.invokeLater(this::repaint);
+        EventQueue.invokeLater(PerformanceMetrics.measureEdt("GameVisualizer.repaint", this::repaint));
+    }
+
+    /**
+     * Включает или выключает оверлей с метриками производительности.
+     *
+     * @param visible показывать ли оверлей
+     */
+    public void setPerformanceOverlayVisible(boolean visible) {
+        performanceOverlayVisible = visible;
+        repaint();
+    }
+
+    /**
+     * @return показывается ли оверлей с метриками производительности
+     */
+    public boolean isPerformanceOverlayVisible() {
+        return performanceOverlayVisible;
+    }
+
+    /**
+     * Включает или выключает слой тепловой карты.
+     *
+     * @param visible показывать ли тепловую карту
+     */
+    public void setHeatmapVisible(boolean visible) {
+        heatmapVisible = visible;
+        analytics.setRenderingEnabled(visible);
+        repaint();
+    }
+
+    /**
+     * @return показывается ли слой тепловой карты
+     */
+    public boolean isHeatmapVisible() {
+        return heatmapVisible;
     }
 
     /**
@@ -208,45 +347,157 @@ public class GameVisualizer extends JPanel {
      * на основе текущей цели. Вызывается таймером.
      */
     protected void onModelUpdateEvent() {
-        double distance = distance(targetPositionX, targetPositionY, robotPositionX, robotPositionY);
-        if (distance < 0.5) {
-            return;
+        long start = PerformanceMetrics.start();
+        updateModel();
+        PerformanceMetrics.endTick(start);
+    }
+
+    /**
+     * Выполняет один шаг управления роботом и продвигает время модели.
+     */
+    private void updateModel() {
+        int flags = RobotRecordLayout.FLAG_ACTIVE;
+        world.beginWrite();
+        try {
+            Point target = requestedTarget.getAndSet(null);
+            if (target != null) {
+                world.setTarget(ROBOT, target.x, target.y);
+                atTarget = false;
+            }
+            if (link == null) {
+                RobotState state = currentState();
+                atTarget = isAtTarget(state);
+                if (!atTarget) {
+                    moveRobot(RobotKinematics.MAX_VELOCITY, steer(state), TICK_PERIOD);
+                } else {
+                    world.setVelocity(ROBOT, 0, 0);
+                }
+            } else {
+                updateDelayedModel();
+            }
+            modelTime += TICK_PERIOD;
+            if (atTarget) {
+                flags |= RobotRecordLayout.FLAG_AT_TARGET;
+            }
+            world.setFlags(ROBOT, flags);
+        } finally {
+            // счётчик изменений не должен остаться нечётным, иначе читатели будут ждать вечно
+            world.publish();
         }
-        double velocity = MAX_VELOCITY;
-        double angleToTarget = angleTo(robotPositionX, robotPositionY, targetPositionX, targetPositionY);
-        double angularVelocity = 0;
-        if (angleToTarget > robotDirection) {
-            angularVelocity = MAX_ANGULAR_VELOCITY;
+        analytics.submit(ROBOT, world.x(ROBOT), world.y(ROBOT), world.targetX(ROBOT), world.targetY(ROBOT),
+                atTarget, modelTime);
+    }
+
+    /**
+     * @return текущее состояние робота из хранилища на текущий момент времени модели
+     */
+    private RobotState currentState() {
+        return new RobotState(world.x(ROBOT), world.y(ROBOT), world.heading(ROBOT), modelTime);
+    }
+
+    /**
+     * Шаг управления с задержками: робот отправляет телеметрию, контроллер
+     * по последнему полученному состоянию предсказывает, где робот окажется
+     * к моменту доставки новой команды, и отправляет команду, а робот
+     * выполняет ту команду, которая дошла до него к текущему моменту.
+     * <p>
+     * Вместо релейного управления здесь используется пропорциональное:
+     * угловая скорость пропорциональна ошибке курса с постоянной времени
+     * не меньше разброса задержки, а линейная скорость снижается при большой
+     * ошибке. Иначе неточность предсказания из-за разброса задержки приводит
+     * к тому, что цель оказывается внутри круга разворота и робот кружит вокруг неё.
+     * У цели линейная скорость не больше оставшегося расстояния, делённого на ту же
+     * постоянную времени, поэтому опоздавшая команда остановки уводит робота
+     * от цели ненамного, и критерий {@link #isAtTarget(RobotState)} выполним и с задержками.
+     */
+    private void updateDelayedModel() {
+        link.publishState(currentState());
+        RobotState observed = link.observe(modelTime);
+        if (observed != null) {
+            RobotState predicted = predictor.predict(observed, link.commandArrival(modelTime));
+            atTarget = isAtTarget(predicted);
+            if (atTarget) {
+                link.sendCommand(modelTime, 0, 0);
+            } else {
+                double error = headingError(predicted);
+                double horizon = Math.max(TICK_PERIOD, latencyConfig.jitter());
+                double remaining = distance(world.targetX(ROBOT), world.targetY(ROBOT), predicted.x(), predicted.y());
+                link.sendCommand(modelTime,
+                        Math.min(RobotKinematics.MAX_VELOCITY, remaining / horizon) * Math.max(0, Math.cos(error)),
+                        error / horizon);
+            }
         }
-        if (angleToTarget < robotDirection) {
-            angularVelocity = -MAX_ANGULAR_VELOCITY;
+        CommandQueue.Cursor active = link.activeCommand(modelTime);
+        if (active.hasCommand()) {
+            moveRobot(active.velocity(), active.angularVelocity(), TICK_PERIOD);
         }
+    }
+
+    /**
+     * Единственный критерий достижения цели. Контроллер применяет его к состоянию,
+     * по которому принимает решение: без задержек - к точному состоянию робота,
+     * с задержками - к предсказанному на момент доставки команды. Флаг в хранилище
+     * и аналитика используют результат этого решения, а не пересчитывают расстояние
+     * по фактическому положению, поэтому флаг установлен ровно тогда, когда контроллер
+     * держит робота на месте.
+     * <p>
+     * Цель достигается ближе {@value #TARGET_RADIUS} пикселя и остаётся достигнутой,
+     * пока робот ближе {@value #TARGET_HOLD_RADIUS} пикселя.
+     *
+     * @param state состояние робота
+     * @return достигнута ли цель с учётом предыдущего решения {@link #atTarget}
+     */
+    private boolean isAtTarget(RobotState state) {
+        double radius = atTarget ? TARGET_HOLD_RADIUS : TARGET_RADIUS;
+        return distance(world.targetX(ROBOT), world.targetY(ROBOT), state.x(), state.y()) < radius;
+    }
 
-        moveRobot(velocity, angularVelocity, 10);
+    /**
+     * Вычисляет ошибку курса: угол, на который роботу нужно повернуть к цели
+     * кратчайшим путём.
+     *
+     * @param state состояние робота
+     * @return ошибка курса в радианах в диапазоне [-π, π)
+     */
+    private double headingError(RobotState state) {
+        double angleToTarget = angleTo(state.x(), state.y(), world.targetX(ROBOT), world.targetY(ROBOT));
+        return RobotKinematics.asNormalizedRadians(angleToTarget - state.direction() + Math.PI) - Math.PI;
+    }
+
+    /**
+     * Выбирает угловую скорость для поворота к цели.
+     *
+     * @param state состояние робота, по которому принимается решение
+     * @return угловая скорость
+     */
+    private double steer(RobotState state) {
+        double angleToTarget = angleTo(state.x(), state.y(), world.targetX(ROBOT), world.targetY(ROBOT));
+        double angularVelocity = 0;
+        if (angleToTarget > state.direction()) {
+            angularVelocity = RobotKinematics.MAX_ANGULAR_VELOCITY;
+        }
+        if (angleToTarget < state.direction()) {
+            angularVelocity = -RobotKinematics.MAX_ANGULAR_VELOCITY;
+        }
+        return angularVelocity;
     }
 
     /**
      * Двигает робота с заданной линейной и угловой скоростью в течение указанного времени.
+     * Скорости ограничиваются допустимыми значениями, и в хранилище записываются
+     * именно те скорости, с которыми робот двигался.
      *
      * @param velocity        линейная скорость
      * @param angularVelocity угловая скорость
      * @param duration        длительность перемещения
      */
-    private void moveRobot(double velocity, double angularVelocity, double duration) {
-        velocity = applyLimits(velocity, 0, MAX_VELOCITY);
-        angularVelocity = applyLimits(angularVelocity, -MAX_ANGULAR_VELOCITY, MAX_ANGULAR_VELOCITY);
-        double newX = robotPositionX + velocity / angularVelocity * (Math.sin(robotDirection + angularVelocity * duration) - Math.sin(robotDirection));
-        if (!Double.isFinite(newX)) {
-            newX = robotPositionX + velocity * duration * Math.cos(robotDirection);
-        }
-        double newY = robotPositionY - velocity / angularVelocity * (Math.cos(robotDirection + angularVelocity * duration) - Math.cos(robotDirection));
-        if (!Double.isFinite(newY)) {
-            newY = robotPositionY + velocity * duration * Math.sin(robotDirection);
-        }
-        robotPositionX = newX;
-        robotPositionY = newY;
-        double newDirection = asNormalizedRadians(robotDirection + angularVelocity * duration);
-        robotDirection = newDirection;
+    private void moveRobot(double velocity, double angularVelocity, long duration) {
+        velocity = RobotKinematics.applyLimits(velocity, 0, RobotKinematics.MAX_VELOCITY);
+        angularVelocity = RobotKinematics.applyLimits(angularVelocity,
+                -RobotKinematics.MAX_ANGULAR_VELOCITY, RobotKinematics.MAX_ANGULAR_VELOCITY);
+        RobotState state = RobotKinematics.move(currentState(), velocity, angularVelocity, duration);
+        world.setPose(ROBOT, state.x(), state.y(), state.direction());
+        world.setVelocity(ROBOT, velocity, angularVelocity);
     }
 
     /**
@@ -257,23 +508,95 @@ public class GameVisualizer extends JPanel {
      */
     @Override
     public void paint(Graphics g) {
+        long start = PerformanceMetrics.start();
         super.paint(g);
         Graphics2D g2d = (Graphics2D) g;
-        drawRobot(g2d, round(robotPositionX), round(robotPositionY), robotDirection);
-        drawTarget(g2d, targetPositionX, targetPositionY);
+        if (heatmapVisible) {
+            drawHeatmap(g2d);
+        }
+        double x;
+        double y;
+        double heading;
+        double targetX;
+        double targetY;
+        long stamp;
+        do {
+            stamp = world.beginRead();
+            x = world.x(ROBOT);
+            y = world.y(ROBOT);
+            heading = world.heading(ROBOT);
+            targetX = world.targetX(ROBOT);
+            targetY = world.targetY(ROBOT);
+        } while (!world.validate(stamp));
+        drawRobot(g2d, round(x), round(y), heading);
+        drawTarget(g2d, round(targetX), round(targetY));
+        PerformanceMetrics.endPaint(start);
+        if (performanceOverlayVisible) {
+            drawPerformanceOverlay(g2d);
+        }
+    }
+
+    /**
+     * Рисует слой тепловой карты и статистику траектории в левом нижнем углу.
+     *
+     * @param g графический контекст
+     */
+    private void drawHeatmap(Graphics2D g) {
+        g.setTransform(new AffineTransform());
+        BufferedImage heatmap = analytics.getHeatmap();
+        int cellSize = analytics.getCellSize();
+        g.drawImage(heatmap, 0, 0, heatmap.getWidth() * cellSize, heatmap.getHeight() * cellSize, null);
+
+        TrajectoryStats stats = analytics.getStats(ROBOT);
+        String text = String.format("Путь: %.0f px, целей: %d, до цели: %.1f с (макс. %.1f с), эффективность: %.0f%%, потеряно отсчётов: %d",
+                stats.getTotalPathLength(), stats.getTargetsReached(),
+                stats.getMeanTimeToTarget() / 1000, stats.getMaxTimeToTarget() / 1000.0,
+                stats.getMeanEfficiency() * 100, analytics.getDroppedCount());
+        g.setColor(Color.BLACK);
+        g.drawString(text, 5, getHeight() - 5);
+    }
+
+    /**
+     * Рисует в левом верхнем углу полупрозрачную панель с текущими метриками.
+     * Время рисования самого оверлея в метрики отрисовки не входит.
+     * Сводка берётся из кэша и пересчитывается не чаще раза в
+     * {@value PerformanceMetrics#SUMMARY_PERIOD} мс, а не на каждой перерисовке.
+     *
+     * @param g графический контекст
+     */
+    private void drawPerformanceOverlay(Graphics2D g) {
+        g.setTransform(new AffineTransform());
+        String summary = PerformanceMetrics.cachedSummary();
+        if (!summary.equals(overlaySummary)) {
+            overlaySummary = summary;
+            overlayLines = summary.split("\n");
+        }
+        String[] lines = overlayLines;
+        FontMetrics metrics = g.getFontMetrics();
+        int lineHeight = metrics.getHeight();
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, metrics.stringWidth(line));
+        }
+        g.setColor(new Color(0, 0, 0, 160));
+        g.fillRect(5, 5, width + 10, lineHeight * lines.length + 6);
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], 10, 8 + metrics.getAscent() + i * lineHeight);
+        }
     }
 
     /**
      * Рисует робота в виде вытянутого овала с "глазом" и поворотом.
      *
      * @param g         графический контекст
-     * @param x         координата X центра робота (не используется)
-     * @param y         координата Y центра робота (не используется)
+     * @param x         координата X центра робота
+     * @param y         координата Y центра робота
      * @param direction направление робота в радианах
      */
     private void drawRobot(Graphics2D g, int x, int y, double direction) {
-        int robotCenterX = round(robotPositionX);
-        int robotCenterY = round(robotPositionY);
+        int robotCenterX = x;
+        int robotCenterY = y;
         AffineTransform t = AffineTransform.getRotateInstance(direction, robotCenterX, robotCenterY);
         g.setTransform(t);
         g.setColor(Color.MAGENTA);
@@ -302,6 +625,17 @@ public class GameVisualizer extends JPanel {
         drawOval(g, x, y, 5, 5);
     }
 
+    /**
+     * Переопределяет метод добавления компонента в иерархию.
+     * Запускает таймеры, когда панель становится отображаемой.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        analytics.start();
+        startTimer();
+    }
+
     /**
      * Переопределяет метод удаления компонента из иерархии.
      * Останавливает таймер при закрытии окна для корректного завершения приложения.
@@ -310,15 +644,69 @@ public class GameVisualizer extends JPanel {
     public void removeNotify() {
         super.removeNotify(); //Вызов родительской реализации метода,
         stopTimer(); //Вызов собственного метода, который останавливает таймер
+        analytics.stop();
     }
 
+    /**
+     * Планирует на таймере перерисовку и обновление модели.
+     * Повторный вызов без предварительной остановки ничего не делает.
+     */
+    private synchronized void startTimer() {
+        if (modelUpdateTask != null || disposed) {
+            return;
+        }
+        redrawTask = new TimerTask() {
+            @Override
+            public void run() {
+                onRedrawEvent();
+            }
+        };
+        modelUpdateTask = new TimerTask() {
+            @Override
+            public void run() {
+                onModelUpdateEvent();
+            }
+        };
+        timer.schedule(redrawTask, 0, 50);
+        timer.schedule(modelUpdateTask, 0, TICK_PERIOD);
+    }
 
     /**
-     * Останавливает и очищает таймер, предотвращая дальнейшее выполнение задач.
+     * Отменяет задачи перерисовки и обновления модели.
+     * Сам таймер продолжает работать, чтобы при повторном показе панели
+     * задачи снова выполнялись в том же потоке.
      * Вызывается при удалении компонента.
      */
-    public void stopTimer() {
-        timer.cancel(); //метод отменяет таймер, предотвращая выполнение всех запланированных задач
+    public synchronized void stopTimer() {
+        if (modelUpdateTask == null) {
+            return;
+        }
+        redrawTask.cancel(); //метод отменяет задачу, предотвращая её дальнейшее выполнение
+        modelUpdateTask.cancel();
         timer.purge(); //метод удаляет все отменённые задачи из очереди таймера, освобождая память
+        redrawTask = null;
+        modelUpdateTask = null;
+    }
+
+    /**
+     * Окончательно освобождает панель при закрытии окна игры: отменяет задачи,
+     * останавливает поток таймера и закрывает хранилище состояния.
+     * Хранилище закрывается последней задачей таймера, то есть после шага модели
+     * и записи снимка, если они выполнялись, а само закрытие передаётся в поток
+     * обработки событий, чтобы оно не совпало с отрисовкой, читающей хранилище.
+     */
+    public synchronized void dispose() {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+        stopTimer();
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                timer.cancel();
+                EventQueue.invokeLater(world::close);
+            }
+        }, 0);
     }
 }
@@ -1,6 +1,8 @@
 package gui;
 
 import javax.swing.*;
+import javax.swing.event.InternalFrameAdapter;
+import javax.swing.event.InternalFrameEvent;
 import java.awt.*;
 
 public class GameWindow extends JInternalFrame {
@@ -13,5 +15,19 @@ public class GameWindow extends JInternalFrame {
         panel.add(gameVisualizer, BorderLayout.CENTER);
         getContentPane().add(panel);
         pack();
+
+        addInternalFrameListener(new InternalFrameAdapter() {
+            @Override
+            public void internalFrameClosed(InternalFrameEvent e) {
+                gameVisualizer.dispose();
+            }
+        });
+    }
+
+    /**
+     * @return панель визуализации игрового поля
+     */
+    public GameVisualizer getGameVisualizer() {
+        return gameVisualizer;
     }
 }
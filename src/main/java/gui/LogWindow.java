@@ -2,40 +2,426 @@ package gui;
 
 import log.LogChangeListener;
 import log.LogEntry;
+import log.LogLevel;
+import log.LogQuery;
 import log.LogWindowSource;
+import perf.PerformanceMetrics;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.InternalFrameAdapter;
+import javax.swing.event.InternalFrameEvent;
 import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Окно протокола с фильтрацией по уровню, времени и тексту.
+ * Сообщения выводятся в виртуализированном списке, который отрисовывает
+ * только видимые строки, поэтому окно остаётся отзывчивым при большом протоколе.
+ * Полный поиск выполняется только при смене фильтров; новые сообщения
+ * дописываются в конец результата, а вытесненные и вышедшие за диапазон
+ * времени удаляются из его начала, так что выделение сохраняется.
+ * <p>
+ * Строки имеют одинаковую высоту; многострочное сообщение показывается
+ * первой строкой с отметкой «…», а целиком - во всплывающей подсказке.
+ */
 public class LogWindow extends JInternalFrame implements LogChangeListener {
+    /**
+     * Варианты диапазона времени: подпись и длительность в миллисекундах
+     * (0 означает весь протокол).
+     */
+    private static final Object[][] PERIODS = {
+            {"За всё время", 0L},
+            {"За 1 минуту", 60_000L},
+            {"За 10 минут", 600_000L},
+            {"За 1 час", 3_600_000L},
+    };
+    /**
+     * Период обновления в миллисекундах, с которым из результата удаляются
+     * сообщения, вышедшие за диапазон времени, даже если новых сообщений нет.
+     */
+    private static final int REFRESH_PERIOD = 1000;
+    /**
+     * Пауза после последнего изменения строки поиска в миллисекундах,
+     * после которой выполняется поиск.
+     */
+    private static final int SEARCH_DELAY = 200;
+
     private final LogWindowSource logSource;
-    private final TextArea logContent;
+    /**
+     * Модель списка, отображающая результат последнего запроса.
+     */
+    private final ResultListModel resultModel = new ResultListModel();
+    private final JList<LogEntry> logContent = new JList<>(resultModel);
+    private final EntryRenderer renderer = new EntryRenderer();
+    private final JScrollPane scrollPane = new JScrollPane(logContent);
+    private final JComboBox<LogLevel> levelFilter = new JComboBox<>(LogLevel.values());
+    private final JComboBox<String> periodFilter = new JComboBox<>();
+    private final JTextField searchField = new JTextField(12);
+    private final JCheckBox wholeWords = new JCheckBox("Целые слова");
+    private final JLabel status = new JLabel();
+    /**
+     * Запланировано ли обновление содержимого; не даёт заполнить очередь
+     * событий повторными обновлениями при частых сообщениях.
+     */
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
+    /**
+     * Таймер, сдвигающий диапазон времени при отсутствии новых сообщений.
+     */
+    private final Timer refreshTimer = new Timer(REFRESH_PERIOD, e -> updateLogContent());
+    /**
+     * Однократный таймер поиска: перезапускается при каждом изменении строки поиска,
+     * так что при наборе текста поиск выполняется один раз, а не на каждую букву.
+     */
+    private final Timer searchTimer = new Timer(SEARCH_DELAY, e -> reloadLogContent());
+    /**
+     * Строка поиска, по которой построен текущий результат. До срабатывания
+     * {@link #searchTimer} она может отличаться от текста в поле поиска,
+     * и новые сообщения дописываются по ней, чтобы результат оставался согласованным.
+     */
+    private String appliedSearch = "";
+    /**
+     * Длина в символах самой длинной строки списка, по которой выбрана ширина строк.
+     */
+    private int longestLine;
+    /**
+     * Порядковый номер, начиная с которого сообщения ещё не просматривались.
+     */
+    private long scannedTo;
 
     public LogWindow(LogWindowSource logSource) {
         super("Протокол работы", true, true, true, true);
         this.logSource = logSource;
         this.logSource.registerListener(this);
-        this.logContent = new TextArea("");
-        this.logContent.setSize(200, 500);
+
+        for (Object[] period : PERIODS) {
+            periodFilter.addItem((String) period[0]);
+        }
+        levelFilter.setToolTipText("Минимальный уровень сообщений");
+        searchField.setToolTipText("Поиск по тексту сообщений");
+        levelFilter.addActionListener(e -> reloadLogContent());
+        periodFilter.addActionListener(e -> reloadLogContent());
+        wholeWords.addActionListener(e -> reloadLogContent());
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+
+        logContent.setCellRenderer(renderer);
+        logContent.setFixedCellHeight(logContent.getFontMetrics(logContent.getFont()).getHeight() + 2);
+
+        JPanel filters = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        filters.add(levelFilter);
+        filters.add(periodFilter);
+        filters.add(searchField);
+        filters.add(wholeWords);
 
         JPanel panel = new JPanel(new BorderLayout());
-        panel.add(logContent, BorderLayout.CENTER);
+        panel.add(filters, BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(status, BorderLayout.SOUTH);
         getContentPane().add(panel);
+        addInternalFrameListener(new InternalFrameAdapter() {
+            @Override
+            public void internalFrameClosed(InternalFrameEvent e) {
+                refreshTimer.stop();
+                searchTimer.stop();
+                logSource.unregisterListener(LogWindow.this);
+            }
+        });
         pack();
-        updateLogContent();
+        reloadLogContent();
+        refreshTimer.start();
+    }
+
+    /**
+     * Составляет запрос по текущим значениям фильтров и строке поиска
+     * текущего результата.
+     *
+     * @return запрос к протоколу
+     */
+    private LogQuery currentQuery() {
+        long period = (Long) PERIODS[periodFilter.getSelectedIndex()][1];
+        long fromTime = period == 0 ? Long.MIN_VALUE : System.currentTimeMillis() - period;
+        LogLevel minLevel = (LogLevel) levelFilter.getSelectedItem();
+        return LogQuery.atLeast(minLevel == null ? LogLevel.Trace : minLevel,
+                fromTime, appliedSearch, !wholeWords.isSelected());
+    }
+
+    /**
+     * Заново выполняет поиск по текущим фильтрам и заменяет результат,
+     * сохраняя выделение тех сообщений, которые в него вошли.
+     */
+    private void reloadLogContent() {
+        boolean atEnd = isScrolledToEnd();
+        List<LogEntry> selected = logContent.getSelectedValuesList();
+        long end = logSource.nextSequence();
+        appliedSearch = searchField.getText();
+        List<LogEntry> result = logSource.query(currentQuery(), Long.MIN_VALUE, end);
+        resultModel.setEntries(result);
+        longestLine = 0;
+        logContent.setFixedCellWidth(0);
+        fitCellWidth(result);
+        scannedTo = end;
+        List<Integer> indices = new ArrayList<>(selected.size());
+        for (LogEntry entry : selected) {
+            int index = resultModel.indexOf(entry.getSequence());
+            if (index >= 0) {
+                indices.add(index);
+            }
+        }
+        logContent.setSelectedIndices(indices.stream().mapToInt(Integer::intValue).toArray());
+        showResult(atEnd);
     }
 
+    /**
+     * Дополняет результат сообщениями, добавленными с прошлого обновления,
+     * и удаляет из его начала вытесненные и вышедшие за диапазон времени.
+     * Стоимость пропорциональна числу изменившихся строк, а не размеру результата.
+     */
     private void updateLogContent() {
-        StringBuilder content = new StringBuilder();
-        for (LogEntry entry : logSource.all()) {
-            content.append(entry.getMessage()).append("\n");
+        updateScheduled.set(false);
+        boolean atEnd = isScrolledToEnd();
+        LogQuery query = currentQuery();
+        long end = logSource.nextSequence();
+        if (end > scannedTo) {
+            List<LogEntry> added = logSource.query(query, scannedTo, end);
+            resultModel.append(added);
+            fitCellWidth(added);
+            scannedTo = end;
+        }
+        resultModel.removeHead(logSource.firstSequence(), query.fromTime());
+        showResult(atEnd);
+    }
+
+    /**
+     * Расширяет строки списка под самую длинную из добавленных строк, чтобы
+     * длинные сообщения можно было прокрутить по горизонтали. Без заданной
+     * ширины список измерял бы все строки при каждом изменении результата;
+     * здесь измеряется только строка длиннее прежних. Ширина выбирается
+     * по числу символов, поэтому для пропорционального шрифта она приблизительна.
+     *
+     * @param added добавленные в результат сообщения
+     */
+    private void fitCellWidth(List<LogEntry> added) {
+        LogEntry longest = null;
+        for (LogEntry entry : added) {
+            int length = EntryRenderer.firstLine(entry.getMessage()).length();
+            if (length > longestLine) {
+                longestLine = length;
+                longest = entry;
+            }
+        }
+        if (longest != null) {
+            Component cell = renderer.getListCellRendererComponent(logContent, longest, 0, false, false);
+            logContent.setFixedCellWidth(cell.getPreferredSize().width);
+        }
+    }
+
+    /**
+     * @return прокручен ли список до конца
+     */
+    private boolean isScrolledToEnd() {
+        JScrollBar scrollBar = scrollPane.getVerticalScrollBar();
+        return scrollBar.getValue() + scrollBar.getVisibleAmount() >= scrollBar.getMaximum();
+    }
+
+    /**
+     * Обновляет строку состояния и, если список был прокручен до конца,
+     * оставляет видимым последнее сообщение.
+     *
+     * @param atEnd был ли список прокручен до конца перед обновлением
+     */
+    private void showResult(boolean atEnd) {
+        int size = resultModel.getSize();
+        status.setText("Найдено: " + size + " из " + logSource.size());
+        if (atEnd && size > 0) {
+            logContent.ensureIndexIsVisible(size - 1);
         }
-        logContent.setText(content.toString());
-        logContent.invalidate();
     }
 
     @Override
     public void onLogChanged() {
-        EventQueue.invokeLater(this::updateLogContent);
+        if (updateScheduled.compareAndSet(false, true)) {
+            EventQueue.invokeLater(PerformanceMetrics.measureEdt("LogWindow.onLogChanged", this::updateLogContent));
+        }
+    }
+
+    /**
+     * Модель списка поверх результата запроса. Удалённые из начала сообщения
+     * отсекаются сдвигом начала и вычищаются из массива пакетами.
+     */
+    private static class ResultListModel extends AbstractListModel<LogEntry> {
+        /**
+         * Число удалённых из начала сообщений, после которого массив уплотняется.
+         */
+        private static final int COMPACT_THRESHOLD = 1024;
+
+        private final ArrayList<LogEntry> entries = new ArrayList<>();
+        /**
+         * Индекс первого отображаемого сообщения в {@link #entries}.
+         */
+        private int start;
+
+        /**
+         * Заменяет результат целиком. Совпадающие по длине строки
+         * обновляются событием изменения, а не удаления и добавления.
+         *
+         * @param result новый результат
+         */
+        void setEntries(List<LogEntry> result) {
+            int oldSize = getSize();
+            entries.clear();
+            entries.addAll(result);
+            start = 0;
+            int newSize = result.size();
+            if (newSize < oldSize) {
+                fireIntervalRemoved(this, newSize, oldSize - 1);
+            } else if (newSize > oldSize) {
+                fireIntervalAdded(this, oldSize, newSize - 1);
+            }
+            if (Math.min(oldSize, newSize) > 0) {
+                fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+            }
+        }
+
+        /**
+         * Дописывает сообщения в конец результата.
+         *
+         * @param added новые сообщения в порядке добавления
+         */
+        void append(List<LogEntry> added) {
+            if (added.isEmpty()) {
+                return;
+            }
+            int oldSize = getSize();
+            entries.addAll(added);
+            fireIntervalAdded(this, oldSize, getSize() - 1);
+        }
+
+        /**
+         * Удаляет из начала результата сообщения с меньшим порядковым номером
+         * или более ранним временем, чем заданные.
+         *
+         * @param firstSequence наименьший допустимый порядковый номер
+         * @param fromTime      наименьшее допустимое время
+         */
+        void removeHead(long firstSequence, long fromTime) {
+            int removed = 0;
+            while (start + removed < entries.size()) {
+                LogEntry entry = entries.get(start + removed);
+                if (entry.getSequence() >= firstSequence && entry.getTimestamp() >= fromTime) {
+                    break;
+                }
+                removed++;
+            }
+            if (removed == 0) {
+                return;
+            }
+            start += removed;
+            if (start >= COMPACT_THRESHOLD && start * 2 >= entries.size()) {
+                entries.subList(0, start).clear();
+                start = 0;
+            }
+            fireIntervalRemoved(this, 0, removed - 1);
+        }
+
+        /**
+         * Находит сообщение двоичным поиском по порядковому номеру.
+         *
+         * @param sequence порядковый номер
+         * @return индекс сообщения в списке или -1, если его нет в результате
+         */
+        int indexOf(long sequence) {
+            int low = start;
+            int high = entries.size() - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long current = entries.get(middle).getSequence();
+                if (current < sequence) {
+                    low = middle + 1;
+                } else if (current > sequence) {
+                    high = middle - 1;
+                } else {
+                    return middle - start;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int getSize() {
+            return entries.size() - start;
+        }
+
+        @Override
+        public LogEntry getElementAt(int index) {
+            return entries.get(start + index);
+        }
+    }
+
+    /**
+     * Отрисовщик строки протокола: время, уровень и текст сообщения.
+     * У многострочного сообщения выводится первая строка с отметкой «…»,
+     * а всё сообщение показывается в подсказке.
+     */
+    private static class EntryRenderer extends DefaultListCellRenderer {
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+
+        /**
+         * @param message текст сообщения
+         * @return первая строка сообщения без завершающего перевода строки
+         */
+        static String firstLine(String message) {
+            int end = message.indexOf('\n');
+            if (end < 0) {
+                return message;
+            }
+            return end > 0 && message.charAt(end - 1) == '\r' ? message.substring(0, end - 1) : message.substring(0, end);
+        }
+
+        /**
+         * @param message многострочный текст
+         * @return HTML для подсказки, сохраняющий переводы строк и пробелы
+         */
+        private static String toolTip(String message) {
+            String escaped = message.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+            return "<html><pre>" + escaped + "</pre></html>";
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            LogEntry entry = (LogEntry) value;
+            String message = entry.getMessage();
+            String line = firstLine(message);
+            boolean multiline = line.length() < message.length();
+            String text = timeFormat.format(new Date(entry.getTimestamp()))
+                    + " [" + entry.getLevel() + "] " + line + (multiline ? " …" : "");
+            super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            setToolTipText(multiline ? toolTip(message) : null);
+            if (!isSelected && entry.getLevel().level() >= LogLevel.Error.level()) {
+                setForeground(Color.RED);
+            }
+            return this;
+        }
     }
 }
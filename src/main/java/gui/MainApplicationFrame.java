@@ -6,6 +6,9 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.beans.PropertyVetoException;
+import java.io.File;
+import java.nio.file.Path;
 
 /**
  * Главное окно приложения, содержащее панель рабочего стола
@@ -17,11 +20,20 @@ public class MainApplicationFrame extends JFrame implements MenuActionListener {
      * Панель рабочего стола, на которой размещаются все внутренние окна.
      */
     private final JDesktopPane desktopPane = new JDesktopPane();
+    /**
+     * Окно игрового поля; создаётся в {@link #createWindows(Runnable)}.
+     */
+    private GameWindow gameWindow;
+    /**
+     * Окно производительности; создаётся при первом открытии.
+     */
+    private PerformanceWindow performanceWindow;
 
     /**
      * Создаёт главное окно, устанавливает его размер на весь экран
-     * с отступами от краёв, создаёт и добавляет окна лога и игры,
-     * а также инициализирует строку меню.
+     * с отступами от краёв и инициализирует строку меню.
+     * Окна лога и игры создаются отдельно, в {@link #createWindows(Runnable)},
+     * чтобы главное окно можно было показать как можно раньше.
      */
     public MainApplicationFrame() {
         //Делает так, чтобы большое окно отступало на 50 пикселей от каждого края экрана.
@@ -31,14 +43,6 @@ public class MainApplicationFrame extends JFrame implements MenuActionListener {
 
         setContentPane(desktopPane);
 
-
-        LogWindow logWindow = createLogWindow();
-        addWindow(logWindow);
-
-        GameWindow gameWindow = new GameWindow();
-        gameWindow.setSize(400, 400);
-        addWindow(gameWindow);
-
         setJMenuBar(new MenuBar(this).create());
 
         setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
@@ -50,6 +54,25 @@ public class MainApplicationFrame extends JFrame implements MenuActionListener {
         });
     }
 
+    /**
+     * Создаёт и добавляет окна лога и игры.
+     * Вызывается в потоке обработки событий после показа главного окна.
+     * Окно игры создаётся отдельной задачей, чтобы между построением
+     * окон поток обработки событий успевал отрисовать уже показанное.
+     *
+     * @param onReady действие, выполняемое после создания обоих окон
+     */
+    public void createWindows(Runnable onReady) {
+        LogWindow logWindow = createLogWindow();
+        addWindow(logWindow);
+
+        EventQueue.invokeLater(() -> {
+            gameWindow = new GameWindow();
+            gameWindow.setSize(400, 400);
+            addWindow(gameWindow);
+            onReady.run();
+        });
+    }
 
     /**
      * Создаёт и настраивает окно протокола.
@@ -93,6 +116,54 @@ public class MainApplicationFrame extends JFrame implements MenuActionListener {
         Logger.debug("Новая строка");
     }
 
+    @Override
+    public void onTogglePerformanceOverlay(boolean visible) {
+        if (gameWindow != null) {
+            gameWindow.getGameVisualizer().setPerformanceOverlayVisible(visible);
+        }
+    }
+
+    @Override
+    public void onShowPerformanceWindow() {
+        if (performanceWindow == null || performanceWindow.isClosed()) {
+            performanceWindow = new PerformanceWindow();
+            performanceWindow.setLocation(320, 10);
+            addWindow(performanceWindow);
+        }
+        try {
+            performanceWindow.setSelected(true);
+        } catch (PropertyVetoException e) {
+            // окно отказалось получать фокус, оно всё равно остаётся видимым
+        }
+    }
+
+    @Override
+    public void onToggleHeatmap(boolean visible) {
+        if (gameWindow != null) {
+            gameWindow.getGameVisualizer().setHeatmapVisible(visible);
+        }
+    }
+
+    @Override
+    public void onSaveWorldSnapshot() {
+        if (gameWindow == null || gameWindow.isClosed()) {
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("robots.world"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = chooser.getSelectedFile().toPath();
+        gameWindow.getGameVisualizer().writeWorldSnapshot(file).whenComplete((ignored, error) -> {
+            if (error == null) {
+                Logger.debug("Снимок мира сохранён: " + file);
+            } else {
+                Logger.error("Не удалось сохранить снимок мира: " + error.getMessage());
+            }
+        });
+    }
+
     @Override
     public void onExit() {
         int result = JOptionPane.showOptionDialog(this, "Вы действительно хотите выйти?", "Подтверждение выхода", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE, null, new Object[]{"Да", "Нет"}, "Нет");
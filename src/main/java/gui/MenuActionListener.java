@@ -20,8 +20,32 @@ public interface MenuActionListener {
      */
     void onAddLogMessage();
 
+    /**
+     * Переключён оверлей с метриками производительности на игровом поле.
+     *
+     * @param visible показывать ли оверлей
+     */
+    void onTogglePerformanceOverlay(boolean visible);
+
+    /**
+     * Выбрана команда открытия окна производительности.
+     */
+    void onShowPerformanceWindow();
+
+    /**
+     * Переключён слой тепловой карты на игровом поле.
+     *
+     * @param visible показывать ли тепловую карту
+     */
+    void onToggleHeatmap(boolean visible);
+
     /**
      * Выбрана команда выхода из приложения.
      */
     void onExit();
+
+    /**
+     * Выбрана команда сохранения снимка состояния роботов в файл.
+     */
+    void onSaveWorldSnapshot();
 }
\ No newline at end of file
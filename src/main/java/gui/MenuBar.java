@@ -41,6 +41,11 @@ public class MenuBar {
         fileMenu.setMnemonic(KeyEvent.VK_F);
         fileMenu.getAccessibleContext().setAccessibleDescription("Управление файлом");
 
+        // Пункт "Сохранить снимок мира"
+        JMenuItem snapshotItem = new JMenuItem("Сохранить снимок мира", KeyEvent.VK_S);
+        snapshotItem.addActionListener(e -> listener.onSaveWorldSnapshot());
+        fileMenu.add(snapshotItem);
+
         // Пункт "Выход"
         JMenuItem exitItem = new JMenuItem("Выход", KeyEvent.VK_X);
         exitItem.addActionListener(e -> listener.onExit());
@@ -74,9 +79,40 @@ public class MenuBar {
         testMenu.add(addLogMessageItem);
 
 
+        // Меню "Производительность"
+        JMenu performanceMenu = new JMenu("Производительность");
+        performanceMenu.setMnemonic(KeyEvent.VK_P);
+        performanceMenu.getAccessibleContext().setAccessibleDescription("Метрики производительности");
+
+        // Пункт "Оверлей на игровом поле"
+        JCheckBoxMenuItem overlayItem = new JCheckBoxMenuItem("Оверлей на игровом поле");
+        overlayItem.setMnemonic(KeyEvent.VK_O);
+        overlayItem.addActionListener(e -> listener.onTogglePerformanceOverlay(overlayItem.isSelected()));
+        performanceMenu.add(overlayItem);
+
+        // Пункт "Окно производительности"
+        JMenuItem performanceWindowItem = new JMenuItem("Окно производительности", KeyEvent.VK_W);
+        performanceWindowItem.addActionListener(e -> listener.onShowPerformanceWindow());
+        performanceMenu.add(performanceWindowItem);
+
+
+        // Меню "Аналитика"
+        JMenu analyticsMenu = new JMenu("Аналитика");
+        analyticsMenu.setMnemonic(KeyEvent.VK_A);
+        analyticsMenu.getAccessibleContext().setAccessibleDescription("Аналитика траекторий роботов");
+
+        // Пункт "Тепловая карта"
+        JCheckBoxMenuItem heatmapItem = new JCheckBoxMenuItem("Тепловая карта");
+        heatmapItem.setMnemonic(KeyEvent.VK_H);
+        heatmapItem.addActionListener(e -> listener.onToggleHeatmap(heatmapItem.isSelected()));
+        analyticsMenu.add(heatmapItem);
+
+
         menuBar.add(fileMenu);
         menuBar.add(lookAndFeelMenu);
         menuBar.add(testMenu);
+        menuBar.add(performanceMenu);
+        menuBar.add(analyticsMenu);
 
 
         return menuBar;
@@ -0,0 +1,72 @@
+package gui;
+
+import perf.PerformanceMetrics;
+
+import javax.swing.*;
+import javax.swing.event.InternalFrameAdapter;
+import javax.swing.event.InternalFrameEvent;
+import java.awt.*;
+
+/**
+ * Внутреннее окно с метриками производительности.
+ * Периодически обновляет сводку из {@link PerformanceMetrics}
+ * и позволяет включать запись метрик и сбрасывать накопленные значения.
+ */
+public class PerformanceWindow extends JInternalFrame {
+
+    /**
+     * Период обновления сводки в миллисекундах.
+     */
+    private static final int REFRESH_PERIOD = (int) PerformanceMetrics.SUMMARY_PERIOD;
+    /**
+     * Поле для вывода сводки по метрикам.
+     */
+    private final JTextArea summary = new JTextArea(8, 40);
+    /**
+     * Таймер обновления сводки, работает в потоке обработки событий.
+     */
+    private final Timer refreshTimer = new Timer(REFRESH_PERIOD, e -> refresh());
+
+    /**
+     * Создаёт окно и запускает периодическое обновление сводки.
+     * Обновление останавливается при закрытии окна.
+     */
+    public PerformanceWindow() {
+        super("Производительность", true, true, true, true);
+        summary.setEditable(false);
+        summary.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JCheckBox enabled = new JCheckBox("Запись метрик", PerformanceMetrics.isEnabled());
+        enabled.addActionListener(e -> PerformanceMetrics.setEnabled(enabled.isSelected()));
+        JButton reset = new JButton("Сбросить");
+        reset.addActionListener(e -> {
+            PerformanceMetrics.reset();
+            refresh();
+        });
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(enabled);
+        controls.add(reset);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(new JScrollPane(summary), BorderLayout.CENTER);
+        panel.add(controls, BorderLayout.SOUTH);
+        getContentPane().add(panel);
+        pack();
+
+        addInternalFrameListener(new InternalFrameAdapter() {
+            @Override
+            public void internalFrameClosed(InternalFrameEvent e) {
+                refreshTimer.stop();
+            }
+        });
+        refresh();
+        refreshTimer.start();
+    }
+
+    /**
+     * Обновляет текст сводки по текущим метрикам.
+     */
+    private void refresh() {
+        summary.setText(PerformanceMetrics.summary());
+    }
+}
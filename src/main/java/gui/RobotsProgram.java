@@ -1,7 +1,13 @@
 package gui;
 
+import log.Logger;
+import perf.PerformanceMetrics;
+import perf.StartupReport;
+
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 /**
  * Главный класс приложения, точка входа.
@@ -10,13 +16,48 @@ import java.awt.*;
  */
 public class RobotsProgram {
 
+    /**
+     * Системное свойство, при установке которого приложение завершается сразу
+     * после создания всех окон. Используется для тренировочного запуска
+     * при построении архива CDS (см. профиль {@code cds} в pom.xml).
+     */
+    private static final String EXIT_AFTER_STARTUP_PROPERTY = "robots.startup.exit";
+    /**
+     * Классы, которые загружаются в фоновом потоке, пока поток обработки событий
+     * строит главное окно. Инициализируются только классы без обращений к Swing
+     * и без дорогих статических инициализаторов (регистрация метрик в JMX
+     * выполняется отдельно, после запуска).
+     */
+    private static final String[] PRELOADED_CLASSES = {
+            "log.Logger",
+            "perf.PerformanceMetrics",
+            "control.LatencyConfig",
+            "world.HeapRobotWorld",
+            "analytics.TrajectoryAnalytics",
+    };
+    /**
+     * Классы окон, которые только загружаются, но не инициализируются в фоновом потоке.
+     */
+    private static final String[] PRELOADED_WINDOW_CLASSES = {
+            "gui.LogWindow",
+            "gui.GameWindow",
+            "gui.GameVisualizer",
+            "javax.swing.JInternalFrame",
+            "javax.swing.JList",
+            "javax.swing.JComboBox",
+    };
+
     /**
      * Точка входа в приложение.
      * Устанавливает Look & Feel (Nimbus) и через SwingUtilities
      * создаёт и отображает главное окно MainApplicationFrame в развёрнутом состоянии.
+     * Внутренние окна строятся уже после показа главного окна,
+     * а нужные им классы тем временем загружаются в фоновом потоке.
      *
      */
     static void main(String[] args) {
+        StartupReport.mark("main");
+        Thread.ofPlatform().daemon().name("class preloader").start(RobotsProgram::preloadClasses);
         try {
             UIManager.setLookAndFeel("javax.swing.plaf.nimbus.NimbusLookAndFeel");
             //UIManager.setLookAndFeel("javax.swing.plaf.metal.MetalLookAndFeel");
@@ -25,11 +66,64 @@ public class RobotsProgram {
         } catch (Exception e) {
             e.printStackTrace();
         }
+        StartupReport.mark("look and feel");
         SwingUtilities.invokeLater(() -> {
             MainApplicationFrame frame = new MainApplicationFrame();
+            frame.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowOpened(WindowEvent e) {
+                    StartupReport.mark("first frame");
+                    EventQueue.invokeLater(() -> onFirstFrameShown(frame));
+                }
+            });
             frame.pack();
             frame.setVisible(true);
             frame.setExtendedState(Frame.MAXIMIZED_BOTH);
         });
     }
+
+    /**
+     * Достраивает внутренние окна после показа главного окна
+     * и выводит отчёт о времени запуска.
+     *
+     * @param frame показанное главное окно
+     */
+    private static void onFirstFrameShown(MainApplicationFrame frame) {
+        frame.createWindows(() -> onWindowsReady(frame));
+    }
+
+    /**
+     * Выводит отчёт о времени запуска после создания всех окон
+     * и при тренировочном запуске завершает приложение.
+     *
+     * @param frame главное окно
+     */
+    private static void onWindowsReady(MainApplicationFrame frame) {
+        StartupReport.mark("windows ready");
+        Thread.ofPlatform().daemon().name("jmx registration").start(PerformanceMetrics::registerMBean);
+        Logger.debug(StartupReport.report());
+        StartupReport.printIfRequested();
+        if (Boolean.getBoolean(EXIT_AFTER_STARTUP_PROPERTY)) {
+            frame.dispose();
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Загружает классы, которые понадобятся сразу после показа главного окна.
+     * Ошибки загрузки не критичны: класс будет загружен позже при первом обращении.
+     */
+    private static void preloadClasses() {
+        ClassLoader loader = RobotsProgram.class.getClassLoader();
+        try {
+            for (String className : PRELOADED_CLASSES) {
+                Class.forName(className, true, loader);
+            }
+            for (String className : PRELOADED_WINDOW_CLASSES) {
+                Class.forName(className, false, loader);
+            }
+        } catch (ClassNotFoundException e) {
+            // класс будет загружен при первом использовании
+        }
+    }
 }
@@ -1,10 +1,14 @@
 package log;
 
 public class LogEntry {
+    private final long sequence;
+    private final long timestamp;
     private final LogLevel logLevel;
     private final String strMessage;
 
-    public LogEntry(LogLevel logLevel, String strMessage) {
+    public LogEntry(long sequence, long timestamp, LogLevel logLevel, String strMessage) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
         this.strMessage = strMessage;
         this.logLevel = logLevel;
     }
@@ -16,5 +20,18 @@ public class LogEntry {
     public LogLevel getLevel() {
         return logLevel;
     }
-}
 
+    /**
+     * @return порядковый номер сообщения в источнике, возрастает с каждым добавлением
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return время добавления сообщения в миллисекундах, не убывает с ростом номера
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
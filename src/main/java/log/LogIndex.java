@@ -0,0 +1,147 @@
+package log;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Инвертированный индекс сообщений протокола: для каждого слова и каждого
+ * уровня хранится возрастающий список порядковых номеров сообщений.
+ * Индекс пополняется при добавлении сообщения и подрезается при вытеснении
+ * старого, поэтому его размер пропорционален числу хранимых сообщений.
+ * Класс не потокобезопасен, доступ синхронизирует {@link LogWindowSource}.
+ */
+class LogIndex {
+
+    /**
+     * Списки номеров сообщений по словам в нижнем регистре.
+     */
+    private final Map<String, PostingList> tokens = new HashMap<>();
+    /**
+     * Списки номеров сообщений по уровням.
+     */
+    private final Map<LogLevel, PostingList> levels = new EnumMap<>(LogLevel.class);
+
+    /**
+     * Создаёт пустой индекс.
+     */
+    LogIndex() {
+        for (LogLevel level : LogLevel.values()) {
+            levels.put(level, new PostingList());
+        }
+    }
+
+    /**
+     * Разбивает текст на слова: последовательности букв и цифр в нижнем регистре.
+     *
+     * @param text исходный текст
+     * @return слова в порядке следования, возможно с повторами
+     */
+    static List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        int length = text.length();
+        int begin = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && begin < 0) {
+                begin = i;
+            } else if (!wordChar && begin >= 0) {
+                result.add(text.substring(begin, i).toLowerCase(Locale.ROOT));
+                begin = -1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Выделяет из запроса слова, которые заведомо целиком входят в любое
+     * сообщение, содержащее запрос как подстроку: слова, с обеих сторон
+     * ограниченные внутри запроса небуквенными символами.
+     *
+     * @param text текст запроса
+     * @return полные слова запроса в нижнем регистре
+     */
+    static List<String> completeTokens(String text) {
+        List<String> result = new ArrayList<>();
+        int length = text.length();
+        int begin = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && begin < 0) {
+                begin = i;
+            } else if (!wordChar && begin >= 0) {
+                if (begin > 0 && i < length) {
+                    result.add(text.substring(begin, i).toLowerCase(Locale.ROOT));
+                }
+                begin = -1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Добавляет сообщение в индекс.
+     *
+     * @param entry добавляемое сообщение
+     */
+    void add(LogEntry entry) {
+        long sequence = entry.getSequence();
+        levels.get(entry.getLevel()).add(sequence);
+        for (String token : tokenize(entry.getMessage())) {
+            tokens.computeIfAbsent(token, key -> new PostingList()).add(sequence);
+        }
+    }
+
+    /**
+     * Удаляет из индекса вытесняемое сообщение. Сообщения должны
+     * вытесняться в порядке добавления.
+     *
+     * @param entry вытесняемое сообщение
+     */
+    void remove(LogEntry entry) {
+        long sequence = entry.getSequence();
+        levels.get(entry.getLevel()).removeFirst(sequence);
+        for (String token : tokenize(entry.getMessage())) {
+            PostingList postings = tokens.get(token);
+            if (postings != null) {
+                postings.removeFirst(sequence);
+                if (postings.size() == 0) {
+                    tokens.remove(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Возвращает списки номеров для всех слов.
+     *
+     * @param words слова в нижнем регистре
+     * @return списки номеров, упорядоченные по возрастанию размера,
+     * или {@code null}, если какое-либо слово не встречается ни в одном сообщении
+     */
+    List<PostingList> postings(List<String> words) {
+        List<PostingList> result = new ArrayList<>(words.size());
+        for (String word : words) {
+            PostingList postings = tokens.get(word);
+            if (postings == null) {
+                return null;
+            }
+            if (!result.contains(postings)) {
+                result.add(postings);
+            }
+        }
+        result.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        return result;
+    }
+
+    /**
+     * @param level уровень сообщений
+     * @return список номеров сообщений этого уровня
+     */
+    PostingList level(LogLevel level) {
+        return levels.get(level);
+    }
+}
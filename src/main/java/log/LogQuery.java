@@ -0,0 +1,50 @@
+package log;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Запрос к протоколу: фильтр по уровням, диапазон времени и поиск по тексту.
+ *
+ * @param levels    допустимые уровни сообщений
+ * @param fromTime  начало диапазона времени в миллисекундах, включительно
+ * @param toTime    конец диапазона времени в миллисекундах, включительно
+ * @param text      искомый текст; пустая строка означает отсутствие текстового фильтра
+ * @param substring искать ли текст как подстроку; иначе сообщение должно
+ *                  содержать все слова запроса целиком
+ */
+public record LogQuery(Set<LogLevel> levels, long fromTime, long toTime, String text, boolean substring) {
+
+    /**
+     * Запрос, которому удовлетворяют все сообщения.
+     */
+    public static final LogQuery ALL = new LogQuery(EnumSet.allOf(LogLevel.class), Long.MIN_VALUE, Long.MAX_VALUE, "", false);
+
+    /**
+     * Копирует набор уровней, чтобы запрос нельзя было изменить после создания.
+     */
+    public LogQuery {
+        levels = levels.isEmpty() ? EnumSet.noneOf(LogLevel.class) : EnumSet.copyOf(levels);
+        text = text == null ? "" : text;
+    }
+
+    /**
+     * Создаёт запрос сообщений не ниже заданного уровня.
+     *
+     * @param minLevel  минимальный уровень сообщений
+     * @param fromTime  начало диапазона времени в миллисекундах
+     * @param text      искомый текст
+     * @param substring искать ли текст как подстроку
+     * @return запрос
+     */
+    public static LogQuery atLeast(LogLevel minLevel, long fromTime, String text, boolean substring) {
+        return new LogQuery(EnumSet.range(minLevel, LogLevel.Fatal), fromTime, Long.MAX_VALUE, text, substring);
+    }
+
+    /**
+     * @return допускает ли запрос все уровни сообщений
+     */
+    boolean allLevels() {
+        return levels.size() == LogLevel.values().length;
+    }
+}
@@ -1,26 +1,51 @@
 package log;
 
+import perf.PerformanceMetrics;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Что починить:
  * 1. Этот класс порождает утечку ресурсов (связанные слушатели оказываются
  * удерживаемыми в памяти)
- * 2. Этот класс хранит активные сообщения лога, но в такой реализации он
- * их лишь накапливает. Надо же, чтобы количество сообщений в логе было ограничено
- * величиной m_iQueueLength (т.е. реально нужна очередь сообщений
- * ограниченного размера)
+ * <p>
+ * Сообщения хранятся в кольцевом буфере длиной queueLength: при переполнении
+ * самое старое сообщение вытесняется. Для поиска по протоколу поддерживается
+ * инвертированный индекс по словам и уровням, который обновляется при
+ * добавлении и вытеснении сообщений (см. {@link #query(LogQuery)}).
  */
 public class LogWindowSource {
     private final ArrayList<LogChangeListener> listeners;
     private final int queueLength;
-    private final ArrayList<LogEntry> messages;
+    private final LogEntry[] messages;
+    private final LogIndex index = new LogIndex();
     private volatile LogChangeListener[] activeListeners;
+    /**
+     * Индекс самого старого сообщения в кольцевом буфере.
+     */
+    private int head;
+    /**
+     * Число хранимых сообщений.
+     */
+    private int count;
+    /**
+     * Порядковый номер следующего сообщения.
+     */
+    private long nextSequence;
+    /**
+     * Время последнего сообщения; время следующих сообщений не может быть меньше.
+     */
+    private long lastTimestamp = Long.MIN_VALUE;
 
     public LogWindowSource(int iQueueLength) {
+        if (iQueueLength <= 0) {
+            throw new IllegalArgumentException("Длина очереди должна быть положительной: " + iQueueLength);
+        }
         queueLength = iQueueLength;
-        messages = new ArrayList<>(iQueueLength);
+        messages = new LogEntry[iQueueLength];
         listeners = new ArrayList<>();
     }
 
@@ -39,8 +64,20 @@ public class LogWindowSource {
     }
 
     public void append(LogLevel logLevel, String strMessage) {
-        LogEntry entry = new LogEntry(logLevel, strMessage);
-        messages.add(entry);
+        synchronized (messages) {
+            lastTimestamp = Math.max(lastTimestamp, System.currentTimeMillis());
+            LogEntry entry = new LogEntry(nextSequence++, lastTimestamp, logLevel, strMessage);
+            if (count == queueLength) {
+                index.remove(messages[head]);
+                messages[head] = entry;
+                head = (head + 1) % queueLength;
+            } else {
+                messages[(head + count) % queueLength] = entry;
+                count++;
+            }
+            index.add(entry);
+        }
+        PerformanceMetrics.countLogAppend();
         LogChangeListener[] activeListeners = this.activeListeners;
         if (activeListeners == null) {
             synchronized (listeners) {
@@ -56,18 +93,271 @@ public class LogWindowSource {
     }
 
     public int size() {
-        return messages.size();
+        synchronized (messages) {
+            return count;
+        }
     }
 
     public Iterable<LogEntry> range(int startFrom, int count) {
-        if (startFrom < 0 || startFrom >= messages.size()) {
-            return Collections.emptyList();
+        synchronized (messages) {
+            if (startFrom < 0 || startFrom >= this.count) {
+                return Collections.emptyList();
+            }
+            int indexTo = Math.min(startFrom + count, this.count);
+            List<LogEntry> result = new ArrayList<>(indexTo - startFrom);
+            for (int i = startFrom; i < indexTo; i++) {
+                result.add(messages[(head + i) % queueLength]);
+            }
+            return result;
         }
-        int indexTo = Math.min(startFrom + count, messages.size());
-        return messages.subList(startFrom, indexTo);
     }
 
     public Iterable<LogEntry> all() {
-        return messages;
+        return range(0, queueLength);
+    }
+
+    /**
+     * @return порядковый номер самого старого хранимого сообщения
+     * или номер следующего сообщения, если протокол пуст
+     */
+    public long firstSequence() {
+        synchronized (messages) {
+            return count == 0 ? nextSequence : messages[head].getSequence();
+        }
+    }
+
+    /**
+     * @return порядковый номер, который получит следующее сообщение
+     */
+    public long nextSequence() {
+        synchronized (messages) {
+            return nextSequence;
+        }
+    }
+
+    /**
+     * Выполняет поиск по хранимым сообщениям.
+     * Кандидаты выбираются по индексу слов или уровней, диапазон времени
+     * сужается двоичным поиском, и только для поиска подстроки без полных
+     * слов в запросе сообщения перебираются подряд.
+     *
+     * @param query запрос
+     * @return подходящие сообщения в порядке добавления
+     */
+    public List<LogEntry> query(LogQuery query) {
+        return query(query, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Выполняет поиск среди сообщений с порядковыми номерами из диапазона
+     * [fromSequence, toSequence). Позволяет дополнять ранее полученный
+     * результат только новыми сообщениями, не повторяя весь поиск.
+     * <p>
+     * Под блокировкой протокола только выбираются кандидаты: по индексу или
+     * копированием диапазона буфера. Текст сообщений проверяется уже без
+     * блокировки, поэтому долгий поиск подстроки не задерживает добавление
+     * сообщений. Сообщения неизменяемы, так что вытеснение кандидата
+     * во время проверки на результат не влияет.
+     *
+     * @param query        запрос
+     * @param fromSequence наименьший допустимый порядковый номер
+     * @param toSequence   порядковый номер, следующий за наибольшим допустимым
+     * @return подходящие сообщения в порядке добавления
+     */
+    public List<LogEntry> query(LogQuery query, long fromSequence, long toSequence) {
+        String text = query.text();
+        boolean verify = query.substring() && !text.isEmpty();
+        List<String> words = query.substring() ? LogIndex.completeTokens(text) : LogIndex.tokenize(text);
+        List<String> checkedWords = List.of();
+        List<LogEntry> candidates;
+        synchronized (messages) {
+            if (count == 0 || query.levels().isEmpty()) {
+                return new ArrayList<>();
+            }
+            long first = messages[head].getSequence();
+            long from = first + firstAtOrAfter(query.fromTime());
+            long to = first + firstAtOrAfter(query.toTime() == Long.MAX_VALUE ? Long.MAX_VALUE : query.toTime() + 1) - 1;
+            from = Math.max(from, fromSequence);
+            to = Math.min(to, toSequence - 1);
+            if (from > to) {
+                return new ArrayList<>();
+            }
+            List<PostingList> postings = words.isEmpty() ? List.of() : index.postings(words);
+            if (postings == null) {
+                return new ArrayList<>();
+            }
+            if (!query.allLevels() && (postings.isEmpty() || levelsSize(query) < postings.get(0).size())) {
+                candidates = collectByLevels(from, to, query);
+                checkedWords = words;
+            } else if (!postings.isEmpty()) {
+                candidates = intersect(postings, from, to, query);
+            } else {
+                candidates = copyRange(from, to);
+            }
+        }
+        if (!verify && checkedWords.isEmpty()) {
+            return candidates;
+        }
+        List<LogEntry> result = new ArrayList<>();
+        for (LogEntry entry : candidates) {
+            if ((checkedWords.isEmpty() || LogIndex.tokenize(entry.getMessage()).containsAll(checkedWords))
+                    && (!verify || containsIgnoreCase(entry.getMessage(), text))) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Копирует хранимые сообщения с номерами из диапазона [from, to].
+     * Вызывается под блокировкой протокола.
+     *
+     * @param from наименьший номер
+     * @param to   наибольший номер
+     * @return сообщения в порядке добавления
+     */
+    private List<LogEntry> copyRange(long from, long to) {
+        int length = (int) (to - from + 1);
+        LogEntry[] copy = new LogEntry[length];
+        int start = (head + (int) (from - messages[head].getSequence())) % queueLength;
+        int tail = Math.min(length, queueLength - start);
+        System.arraycopy(messages, start, copy, 0, tail);
+        System.arraycopy(messages, 0, copy, tail, length - tail);
+        return new ArrayList<>(Arrays.asList(copy));
+    }
+
+    /**
+     * Перебирает номера, входящие во все списки, в диапазоне [from, to]
+     * и собирает сообщения выбранных в запросе уровней.
+     * Вызывается под блокировкой протокола.
+     *
+     * @param postings списки номеров, упорядоченные по возрастанию размера
+     * @param from     наименьший допустимый номер
+     * @param to       наибольший допустимый номер
+     * @param query    запрос
+     * @return кандидаты, текст которых ещё нужно проверить на подстроку
+     */
+    private List<LogEntry> intersect(List<PostingList> postings, long from, long to, LogQuery query) {
+        List<LogEntry> result = new ArrayList<>();
+        PostingList smallest = postings.get(0);
+        int[] positions = new int[postings.size()];
+        for (int i = smallest.lowerBound(from, 0); i < smallest.size(); i++) {
+            long sequence = smallest.get(i);
+            if (sequence > to) {
+                break;
+            }
+            boolean matches = true;
+            for (int j = 1; j < postings.size() && matches; j++) {
+                PostingList other = postings.get(j);
+                positions[j] = other.lowerBound(sequence, positions[j]);
+                matches = positions[j] < other.size() && other.get(positions[j]) == sequence;
+            }
+            if (matches) {
+                LogEntry entry = entryAt(sequence);
+                if (query.levels().contains(entry.getLevel())) {
+                    result.add(entry);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param query запрос
+     * @return общее число хранимых сообщений выбранных в запросе уровней
+     */
+    private int levelsSize(LogQuery query) {
+        int size = 0;
+        for (LogLevel level : query.levels()) {
+            size += index.level(level).size();
+        }
+        return size;
+    }
+
+    /**
+     * Собирает сообщения выбранных уровней в диапазоне [from, to],
+     * сливая списки номеров уровней. Используется, когда сообщений
+     * выбранных уровней меньше, чем сообщений с самым редким словом запроса.
+     * Вызывается под блокировкой протокола.
+     *
+     * @param from  наименьший допустимый номер
+     * @param to    наибольший допустимый номер
+     * @param query запрос
+     * @return кандидаты, текст которых ещё нужно проверить на слова и подстроку
+     */
+    private List<LogEntry> collectByLevels(long from, long to, LogQuery query) {
+        List<LogEntry> result = new ArrayList<>();
+        List<PostingList> lists = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (LogLevel level : query.levels()) {
+            PostingList postings = index.level(level);
+            lists.add(postings);
+            positions.add(postings.lowerBound(from, 0));
+        }
+        while (true) {
+            int best = -1;
+            long bestSequence = Long.MAX_VALUE;
+            for (int i = 0; i < lists.size(); i++) {
+                int position = positions.get(i);
+                if (position < lists.get(i).size() && lists.get(i).get(position) < bestSequence) {
+                    best = i;
+                    bestSequence = lists.get(i).get(position);
+                }
+            }
+            if (best < 0 || bestSequence > to) {
+                return result;
+            }
+            positions.set(best, positions.get(best) + 1);
+            result.add(entryAt(bestSequence));
+        }
+    }
+
+    /**
+     * Находит двоичным поиском первое сообщение со временем не меньше заданного.
+     *
+     * @param time время в миллисекундах
+     * @return позиция сообщения от самого старого, или число сообщений, если такого нет
+     */
+    private int firstAtOrAfter(long time) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (messages[(head + middle) % queueLength].getTimestamp() < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param sequence порядковый номер хранимого сообщения
+     * @return сообщение с этим номером
+     */
+    private LogEntry entryAt(long sequence) {
+        int offset = (int) (sequence - messages[head].getSequence());
+        return messages[(head + offset) % queueLength];
+    }
+
+    /**
+     * Проверяет вхождение подстроки без учёта регистра.
+     *
+     * @param text     текст
+     * @param fragment искомая подстрока
+     * @return входит ли подстрока в текст
+     */
+    private static boolean containsIgnoreCase(String text, String fragment) {
+        int last = text.length() - fragment.length();
+        char lower = Character.toLowerCase(fragment.charAt(0));
+        char upper = Character.toUpperCase(fragment.charAt(0));
+        for (int i = 0; i <= last; i++) {
+            char c = text.charAt(i);
+            if ((c == lower || c == upper) && text.regionMatches(true, i, fragment, 0, fragment.length())) {
+                return true;
+            }
+        }
+        return false;
     }
 }
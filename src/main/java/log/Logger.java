@@ -1,7 +1,12 @@
 package log;
 
 public final class Logger {
-    private static final LogWindowSource DEFAULT_LOG_SOURCE = new LogWindowSource(100);
+    /**
+     * Число хранимых сообщений протокола; задаётся системным свойством
+     * {@code robots.log.capacity}, по умолчанию 100.
+     */
+    private static final LogWindowSource DEFAULT_LOG_SOURCE =
+            new LogWindowSource(Integer.getInteger("robots.log.capacity", 100));
 
     private Logger() {
     }
@@ -0,0 +1,104 @@
+package log;
+
+import java.util.Arrays;
+
+/**
+ * Возрастающий список порядковых номеров сообщений для инвертированного индекса.
+ * Номера добавляются в конец и удаляются из начала по мере вытеснения
+ * старых сообщений, поэтому обе операции выполняются за амортизированное O(1).
+ */
+class PostingList {
+
+    /**
+     * Начальная ёмкость списка.
+     */
+    private static final int INITIAL_CAPACITY = 2;
+
+    /**
+     * Номера сообщений; значимы элементы в диапазоне [start, end).
+     */
+    private long[] data = new long[INITIAL_CAPACITY];
+    /**
+     * Индекс первого значимого элемента.
+     */
+    private int start;
+    /**
+     * Индекс за последним значимым элементом.
+     */
+    private int end;
+
+    /**
+     * Добавляет номер, если он больше последнего добавленного.
+     * Повторное добавление того же номера игнорируется, что позволяет
+     * не проверять уникальность слов внутри одного сообщения.
+     *
+     * @param sequence порядковый номер сообщения
+     */
+    void add(long sequence) {
+        if (end > start && data[end - 1] >= sequence) {
+            return;
+        }
+        if (end == data.length) {
+            int size = size();
+            if (start >= size) {
+                System.arraycopy(data, start, data, 0, size);
+            } else {
+                data = Arrays.copyOfRange(data, start, start + Math.max(INITIAL_CAPACITY, size * 2));
+            }
+            start = 0;
+            end = size;
+        }
+        data[end++] = sequence;
+    }
+
+    /**
+     * Удаляет первый номер, если он равен заданному.
+     *
+     * @param sequence порядковый номер вытесняемого сообщения
+     */
+    void removeFirst(long sequence) {
+        if (end > start && data[start] == sequence) {
+            start++;
+        }
+        if (start == end) {
+            start = 0;
+            end = 0;
+        }
+    }
+
+    /**
+     * @return число номеров в списке
+     */
+    int size() {
+        return end - start;
+    }
+
+    /**
+     * @param position позиция от начала списка
+     * @return номер сообщения
+     */
+    long get(int position) {
+        return data[start + position];
+    }
+
+    /**
+     * Находит позицию первого номера, не меньшего заданного.
+     *
+     * @param sequence искомый номер
+     * @param from     позиция, с которой начинается поиск
+     * @return позиция в диапазоне [from, size()]
+     */
+    int lowerBound(long sequence, int from) {
+        int low = start + from;
+        int high = end;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (data[middle] < sequence) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - start;
+    }
+}
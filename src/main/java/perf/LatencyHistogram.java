@@ -0,0 +1,170 @@
+package perf;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма длительностей в стиле HDR: значения в наносекундах
+ * раскладываются по логарифмическим корзинам, каждая из которых поделена
+ * на {@value #SUB_BUCKETS} линейных поддиапазонов. Относительная погрешность
+ * квантилей не превышает 1/{@value #SUB_BUCKETS}, а объём памяти фиксирован
+ * и не зависит от числа записанных значений.
+ * <p>
+ * Запись не блокирует и может выполняться из любого потока.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Число двоичных разрядов линейной части корзины.
+     */
+    private static final int SUB_BUCKET_BITS = 6;
+    /**
+     * Число линейных поддиапазонов в одной логарифмической корзине.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Число логарифмических корзин: покрывает весь диапазон {@code long}.
+     */
+    private static final int BUCKETS = Long.SIZE - SUB_BUCKET_BITS + 1;
+
+    /**
+     * Имя гистограммы, используемое при выводе.
+     */
+    private final String name;
+    /**
+     * Счётчики попаданий по корзинам.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS * SUB_BUCKETS);
+    /**
+     * Общее число записанных значений.
+     */
+    private final AtomicLong totalCount = new AtomicLong();
+    /**
+     * Сумма записанных значений, нужна для вычисления среднего.
+     */
+    private final AtomicLong totalSum = new AtomicLong();
+    /**
+     * Максимальное записанное значение.
+     */
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Создаёт пустую гистограмму.
+     *
+     * @param name имя гистограммы
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Вычисляет индекс корзины для значения.
+     * Значения меньше {@value #SUB_BUCKETS} хранятся точно, остальные
+     * округляются до старших {@value #SUB_BUCKET_BITS} + 1 разрядов.
+     *
+     * @param value неотрицательное значение
+     * @return индекс в массиве счётчиков
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Возвращает наибольшее значение, попадающее в корзину с заданным индексом.
+     *
+     * @param index индекс корзины
+     * @return верхняя граница корзины
+     */
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long top = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Записывает одно значение.
+     *
+     * @param nanos длительность в наносекундах, отрицательные значения приравниваются к нулю
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        totalSum.addAndGet(value);
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    /**
+     * Возвращает значение, не превышаемое заданной долей записанных значений.
+     *
+     * @param percentile процентиль в диапазоне [0, 100]
+     * @return оценка значения в наносекундах или 0, если гистограмма пуста
+     */
+    public long percentile(double percentile) {
+        long total = totalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long threshold = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= threshold) {
+                return Math.min(highestValueAt(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * @return число записанных значений
+     */
+    public long count() {
+        return totalCount.get();
+    }
+
+    /**
+     * @return среднее значение в наносекундах или 0, если гистограмма пуста
+     */
+    public double mean() {
+        long total = totalCount.get();
+        return total == 0 ? 0 : (double) totalSum.get() / total;
+    }
+
+    /**
+     * @return максимальное записанное значение в наносекундах
+     */
+    public long max() {
+        return maxValue.get();
+    }
+
+    /**
+     * @return имя гистограммы
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Обнуляет гистограмму. Значения, записываемые во время сброса,
+     * могут быть частично потеряны.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalSum.set(0);
+        maxValue.set(0);
+    }
+}
@@ -0,0 +1,78 @@
+package perf;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Пользовательские события JFR для метрик приложения.
+ * Длительность измеряется приложением и передаётся в поле события, поэтому
+ * события фиксируются мгновенно, без вызова {@link Event#begin()}.
+ * Вне активной записи JFR {@link Event#shouldCommit()} возвращает {@code false}
+ * и событие отбрасывается.
+ */
+final class PerformanceEvents {
+
+    private PerformanceEvents() {
+    }
+
+    /**
+     * Шаг обновления модели робота.
+     */
+    @Name("robots.ModelTick")
+    @Label("Model Tick")
+    @Category({"Robots", "Performance"})
+    @Description("Длительность одного шага обновления модели")
+    @StackTrace(false)
+    static final class TickEvent extends Event {
+        /**
+         * Измеренная длительность.
+         */
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    /**
+     * Отрисовка игрового поля.
+     */
+    @Name("robots.Paint")
+    @Label("Paint")
+    @Category({"Robots", "Performance"})
+    @Description("Длительность отрисовки игрового поля")
+    @StackTrace(false)
+    static final class PaintEvent extends Event {
+        /**
+         * Измеренная длительность.
+         */
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    /**
+     * Ожидание задачи в очереди событий Swing.
+     */
+    @Name("robots.EdtLatency")
+    @Label("EDT Queue Latency")
+    @Category({"Robots", "Performance"})
+    @Description("Время от постановки задачи в очередь событий до начала её выполнения")
+    @StackTrace(false)
+    static final class EdtLatencyEvent extends Event {
+        /**
+         * Источник задачи.
+         */
+        @Label("Source")
+        String source;
+        /**
+         * Время ожидания в очереди.
+         */
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+}
@@ -0,0 +1,368 @@
+package perf;
+
+import perf.PerformanceEvents.EdtLatencyEvent;
+import perf.PerformanceEvents.PaintEvent;
+import perf.PerformanceEvents.TickEvent;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Фасад для сбора метрик производительности: длительности шага модели,
+ * длительности отрисовки, задержки в очереди событий Swing, а также счётчиков
+ * сообщений протокола и перерисовок.
+ * <p>
+ * Метрики доступны через JMX под именем {@value #OBJECT_NAME}
+ * (после {@link #registerMBean()}), через
+ * пользовательские события JFR категории "Robots" и через окно
+ * производительности приложения. Запись сводится к вызову {@link System#nanoTime()}
+ * и нескольким атомарным инкрементам; при выключенной записи замеры не выполняются.
+ */
+public final class PerformanceMetrics {
+
+    /**
+     * Имя, под которым метрики регистрируются в JMX.
+     */
+    public static final String OBJECT_NAME = "robots:type=PerformanceMetrics";
+    /**
+     * Значение, возвращаемое из методов начала замера при выключенной записи.
+     */
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+    /**
+     * Длительность шага модели.
+     */
+    private static final LatencyHistogram TICK = new LatencyHistogram("Шаг модели");
+    /**
+     * Длительность отрисовки игрового поля.
+     */
+    private static final LatencyHistogram PAINT = new LatencyHistogram("Отрисовка");
+    /**
+     * Задержка задач в очереди событий Swing.
+     */
+    private static final LatencyHistogram EDT_LATENCY = new LatencyHistogram("Очередь EDT");
+    /**
+     * Число сообщений, добавленных в протокол.
+     */
+    private static final LongAdder LOG_APPENDS = new LongAdder();
+    /**
+     * Число выполненных перерисовок игрового поля.
+     */
+    private static final LongAdder REPAINTS = new LongAdder();
+    /**
+     * Включена ли запись метрик. По умолчанию включена,
+     * отключается системным свойством {@code robots.metrics=false}.
+     */
+    private static volatile boolean enabled =
+            Boolean.parseBoolean(System.getProperty("robots.metrics", "true"));
+    /**
+     * Период, в течение которого сводка из {@link #cachedSummary()} не пересчитывается,
+     * в миллисекундах.
+     */
+    public static final long SUMMARY_PERIOD = 500;
+    /**
+     * Последняя построенная сводка; {@code null}, пока сводка не строилась.
+     */
+    private static volatile String cachedSummary;
+    /**
+     * Момент построения последней сводки по {@link System#nanoTime()}.
+     */
+    private static volatile long cachedSummaryTime;
+
+    /**
+     * Зарегистрированы ли метрики в JMX.
+     */
+    private static boolean registered;
+
+    private PerformanceMetrics() {
+    }
+
+    /**
+     * Регистрирует метрики в платформенном MBean-сервере; повторные вызовы ничего не делают.
+     * Запуск MBean-сервера занимает заметное время, поэтому регистрация не выполняется
+     * при инициализации класса, а вызывается приложением после запуска, вне потока
+     * обработки событий. Ошибка регистрации не мешает работе приложения.
+     */
+    public static synchronized void registerMBean() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(new MXBean(), new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            // метрики остаются доступны внутри приложения
+        }
+    }
+
+    /**
+     * @return включена ли запись метрик
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Включает или выключает запись метрик.
+     *
+     * @param value новое состояние записи
+     */
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * Начинает замер длительности.
+     *
+     * @return отметка времени для передачи в {@link #endTick(long)} или {@link #endPaint(long)}
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /**
+     * Завершает замер шага модели.
+     *
+     * @param start значение, полученное из {@link #start()}
+     */
+    public static void endTick(long start) {
+        if (start == NOT_STARTED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        TICK.record(elapsed);
+        TickEvent event = new TickEvent();
+        if (event.shouldCommit()) {
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Завершает замер отрисовки и учитывает перерисовку в счётчике.
+     *
+     * @param start значение, полученное из {@link #start()}
+     */
+    public static void endPaint(long start) {
+        if (start == NOT_STARTED) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        PAINT.record(elapsed);
+        REPAINTS.increment();
+        PaintEvent event = new PaintEvent();
+        if (event.shouldCommit()) {
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Оборачивает задачу для очереди событий Swing так, чтобы при её запуске
+     * было измерено время ожидания в очереди.
+     *
+     * @param source имя источника задачи для событий JFR
+     * @param task   исходная задача
+     * @return задача для передачи в {@link java.awt.EventQueue#invokeLater(Runnable)}
+     */
+    public static Runnable measureEdt(String source, Runnable task) {
+        long enqueued = start();
+        if (enqueued == NOT_STARTED) {
+            return task;
+        }
+        return () -> {
+            long latency = System.nanoTime() - enqueued;
+            EDT_LATENCY.record(latency);
+            EdtLatencyEvent event = new EdtLatencyEvent();
+            if (event.shouldCommit()) {
+                event.source = source;
+                event.latency = latency;
+                event.commit();
+            }
+            task.run();
+        };
+    }
+
+    /**
+     * Учитывает добавление сообщения в протокол.
+     */
+    public static void countLogAppend() {
+        if (enabled) {
+            LOG_APPENDS.increment();
+        }
+    }
+
+    /**
+     * @return гистограмма длительности шага модели
+     */
+    public static LatencyHistogram tick() {
+        return TICK;
+    }
+
+    /**
+     * @return гистограмма длительности отрисовки
+     */
+    public static LatencyHistogram paint() {
+        return PAINT;
+    }
+
+    /**
+     * @return гистограмма задержки в очереди событий Swing
+     */
+    public static LatencyHistogram edtLatency() {
+        return EDT_LATENCY;
+    }
+
+    /**
+     * @return число сообщений, добавленных в протокол
+     */
+    public static long logAppends() {
+        return LOG_APPENDS.sum();
+    }
+
+    /**
+     * @return число выполненных перерисовок игрового поля
+     */
+    public static long repaints() {
+        return REPAINTS.sum();
+    }
+
+    /**
+     * Обнуляет все гистограммы и счётчики.
+     */
+    public static void reset() {
+        TICK.reset();
+        PAINT.reset();
+        EDT_LATENCY.reset();
+        LOG_APPENDS.reset();
+        REPAINTS.reset();
+    }
+
+    /**
+     * Формирует краткую текстовую сводку по всем метрикам.
+     *
+     * @return многострочная сводка
+     */
+    public static String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (LatencyHistogram histogram : new LatencyHistogram[]{TICK, PAINT, EDT_LATENCY}) {
+            summary.append(String.format("%s: n=%d p50=%.1f p99=%.1f max=%.1f мкс%n",
+                    histogram.getName(), histogram.count(),
+                    micros(histogram.percentile(50)), micros(histogram.percentile(99)),
+                    micros(histogram.max())));
+        }
+        summary.append("Сообщений в протоколе: ").append(logAppends()).append('\n');
+        summary.append("Перерисовок: ").append(repaints());
+        return summary.toString();
+    }
+
+    /**
+     * Возвращает сводку, пересчитывая её не чаще одного раза за {@value #SUMMARY_PERIOD} мс.
+     * Построение сводки просматривает все гистограммы, поэтому частые потребители,
+     * например отрисовка оверлея, используют этот метод вместо {@link #summary()}.
+     *
+     * @return многострочная сводка
+     */
+    public static String cachedSummary() {
+        String summary = cachedSummary;
+        long now = System.nanoTime();
+        if (summary == null || now - cachedSummaryTime >= SUMMARY_PERIOD * 1_000_000) {
+            summary = summary();
+            cachedSummary = summary;
+            cachedSummaryTime = now;
+        }
+        return summary;
+    }
+
+    /**
+     * Переводит наносекунды в микросекунды.
+     *
+     * @param nanos значение в наносекундах
+     * @return значение в микросекундах
+     */
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    /**
+     * Реализация интерфейса JMX поверх статических метрик.
+     */
+    private static final class MXBean implements PerformanceMetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return PerformanceMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            PerformanceMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public long getTickCount() {
+            return TICK.count();
+        }
+
+        @Override
+        public double getTickP50Micros() {
+            return micros(TICK.percentile(50));
+        }
+
+        @Override
+        public double getTickP99Micros() {
+            return micros(TICK.percentile(99));
+        }
+
+        @Override
+        public double getTickMaxMicros() {
+            return micros(TICK.max());
+        }
+
+        @Override
+        public double getPaintP50Micros() {
+            return micros(PAINT.percentile(50));
+        }
+
+        @Override
+        public double getPaintP99Micros() {
+            return micros(PAINT.percentile(99));
+        }
+
+        @Override
+        public double getPaintMaxMicros() {
+            return micros(PAINT.max());
+        }
+
+        @Override
+        public double getEdtLatencyP50Micros() {
+            return micros(EDT_LATENCY.percentile(50));
+        }
+
+        @Override
+        public double getEdtLatencyP99Micros() {
+            return micros(EDT_LATENCY.percentile(99));
+        }
+
+        @Override
+        public double getEdtLatencyMaxMicros() {
+            return micros(EDT_LATENCY.max());
+        }
+
+        @Override
+        public long getLogAppendCount() {
+            return logAppends();
+        }
+
+        @Override
+        public long getRepaintCount() {
+            return repaints();
+        }
+
+        @Override
+        public void reset() {
+            PerformanceMetrics.reset();
+        }
+    }
+}
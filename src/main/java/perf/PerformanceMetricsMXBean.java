@@ -0,0 +1,84 @@
+package perf;
+
+/**
+ * Интерфейс управления метриками производительности через JMX.
+ * Длительности возвращаются в микросекундах.
+ */
+public interface PerformanceMetricsMXBean {
+    /**
+     * @return включена ли запись метрик
+     */
+    boolean isEnabled();
+
+    /**
+     * Включает или выключает запись метрик.
+     *
+     * @param enabled новое состояние записи
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return число обработанных шагов модели
+     */
+    long getTickCount();
+
+    /**
+     * @return медиана длительности шага модели
+     */
+    double getTickP50Micros();
+
+    /**
+     * @return 99-й процентиль длительности шага модели
+     */
+    double getTickP99Micros();
+
+    /**
+     * @return максимальная длительность шага модели
+     */
+    double getTickMaxMicros();
+
+    /**
+     * @return медиана длительности отрисовки
+     */
+    double getPaintP50Micros();
+
+    /**
+     * @return 99-й процентиль длительности отрисовки
+     */
+    double getPaintP99Micros();
+
+    /**
+     * @return максимальная длительность отрисовки
+     */
+    double getPaintMaxMicros();
+
+    /**
+     * @return медиана задержки в очереди событий Swing
+     */
+    double getEdtLatencyP50Micros();
+
+    /**
+     * @return 99-й процентиль задержки в очереди событий Swing
+     */
+    double getEdtLatencyP99Micros();
+
+    /**
+     * @return максимальная задержка в очереди событий Swing
+     */
+    double getEdtLatencyMaxMicros();
+
+    /**
+     * @return число сообщений, добавленных в протокол
+     */
+    long getLogAppendCount();
+
+    /**
+     * @return число выполненных перерисовок игрового поля
+     */
+    long getRepaintCount();
+
+    /**
+     * Обнуляет все гистограммы и счётчики.
+     */
+    void reset();
+}
@@ -0,0 +1,82 @@
+package perf;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Отчёт о времени запуска приложения.
+ * Собирает отметки этапов запуска относительно старта JVM
+ * (или, если время старта процесса недоступно, относительно первой отметки).
+ */
+public final class StartupReport {
+
+    /**
+     * Системное свойство, при установке которого отчёт печатается в stderr.
+     */
+    public static final String PRINT_PROPERTY = "robots.startup.report";
+    /**
+     * Момент, от которого отсчитываются отметки, в наносекундах {@link System#nanoTime()}.
+     */
+    private static final long ORIGIN = computeOrigin();
+    /**
+     * Отметки этапов в порядке их поступления.
+     */
+    private static final List<String> phases = new ArrayList<>();
+    /**
+     * Время отметок в наносекундах от {@link #ORIGIN}.
+     */
+    private static final List<Long> timestamps = new ArrayList<>();
+
+    private StartupReport() {
+    }
+
+    /**
+     * Переводит время старта процесса в шкалу {@link System#nanoTime()}.
+     *
+     * @return отметка старта JVM или текущее время, если старт неизвестен
+     */
+    private static long computeOrigin() {
+        long now = System.nanoTime();
+        return ProcessHandle.current().info().startInstant()
+                .map(start -> now - Duration.between(start, Instant.now()).toNanos())
+                .orElse(now);
+    }
+
+    /**
+     * Запоминает момент завершения этапа запуска.
+     *
+     * @param phase название этапа
+     */
+    public static synchronized void mark(String phase) {
+        phases.add(phase);
+        timestamps.add(System.nanoTime() - ORIGIN);
+    }
+
+    /**
+     * Формирует отчёт со всеми отметками.
+     *
+     * @return многострочный отчёт
+     */
+    public static synchronized String report() {
+        StringBuilder report = new StringBuilder("Время запуска:");
+        long previous = 0;
+        for (int i = 0; i < phases.size(); i++) {
+            long timestamp = timestamps.get(i);
+            report.append(String.format("%n  %-24s %6d мс (+%d мс)", phases.get(i),
+                    timestamp / 1_000_000, (timestamp - previous) / 1_000_000));
+            previous = timestamp;
+        }
+        return report.toString();
+    }
+
+    /**
+     * Печатает отчёт в stderr, если задано свойство {@value #PRINT_PROPERTY}.
+     */
+    public static void printIfRequested() {
+        if (Boolean.getBoolean(PRINT_PROPERTY)) {
+            System.err.println(report());
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package world;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+
+/**
+ * Хранилище состояния роботов в массивах в куче.
+ * Используется по умолчанию; для снимка данные копируются во временную
+ * область в формате {@link RobotRecordLayout}.
+ */
+public class HeapRobotWorld implements RobotWorld {
+
+    /**
+     * Доступ к счётчику изменений с семантикой release/acquire.
+     */
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(HeapRobotWorld.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Поля записей по номерам роботов.
+     */
+    private final double[] x;
+    private final double[] y;
+    private final double[] heading;
+    private final double[] targetX;
+    private final double[] targetY;
+    private final double[] velocity;
+    private final double[] angularVelocity;
+    private final int[] flags;
+    /**
+     * Счётчик изменений: нечётный, пока идёт изменение, см. {@link RobotRecordLayout}.
+     */
+    private long sequence;
+
+    /**
+     * Создаёт хранилище.
+     *
+     * @param capacity число роботов
+     */
+    public HeapRobotWorld(int capacity) {
+        x = new double[capacity];
+        y = new double[capacity];
+        heading = new double[capacity];
+        targetX = new double[capacity];
+        targetY = new double[capacity];
+        velocity = new double[capacity];
+        angularVelocity = new double[capacity];
+        flags = new int[capacity];
+    }
+
+    @Override
+    public int capacity() {
+        return flags.length;
+    }
+
+    @Override
+    public double x(int robot) {
+        return x[robot];
+    }
+
+    @Override
+    public double y(int robot) {
+        return y[robot];
+    }
+
+    @Override
+    public double heading(int robot) {
+        return heading[robot];
+    }
+
+    @Override
+    public double targetX(int robot) {
+        return targetX[robot];
+    }
+
+    @Override
+    public double targetY(int robot) {
+        return targetY[robot];
+    }
+
+    @Override
+    public double velocity(int robot) {
+        return velocity[robot];
+    }
+
+    @Override
+    public double angularVelocity(int robot) {
+        return angularVelocity[robot];
+    }
+
+    @Override
+    public int flags(int robot) {
+        return flags[robot];
+    }
+
+    @Override
+    public void setPose(int robot, double x, double y, double heading) {
+        this.x[robot] = x;
+        this.y[robot] = y;
+        this.heading[robot] = heading;
+    }
+
+    @Override
+    public void setTarget(int robot, double x, double y) {
+        targetX[robot] = x;
+        targetY[robot] = y;
+    }
+
+    @Override
+    public void setVelocity(int robot, double velocity, double angularVelocity) {
+        this.velocity[robot] = velocity;
+        this.angularVelocity[robot] = angularVelocity;
+    }
+
+    @Override
+    public void setFlags(int robot, int flags) {
+        this.flags[robot] = flags;
+    }
+
+    @Override
+    public void beginWrite() {
+        SEQUENCE.setRelease(this, sequence | 1);
+        VarHandle.storeStoreFence();
+    }
+
+    @Override
+    public void publish() {
+        SEQUENCE.setRelease(this, (sequence | 1) + 1);
+    }
+
+    @Override
+    public long beginRead() {
+        long stamp = (long) SEQUENCE.getAcquire(this);
+        if ((stamp & 1) == 0) {
+            return stamp;
+        }
+        return RobotRecordLayout.awaitStable(() -> (long) SEQUENCE.getAcquire(this), RobotRecordLayout.READ_TIMEOUT);
+    }
+
+    @Override
+    public boolean validate(long stamp) {
+        VarHandle.acquireFence();
+        return (long) SEQUENCE.getAcquire(this) == stamp;
+    }
+
+    @Override
+    public void writeSnapshot(Path file) throws IOException {
+        try (Arena arena = Arena.ofConfined()) {
+            OffHeapRobotWorld copy = new OffHeapRobotWorld(
+                    arena.allocate(RobotRecordLayout.byteSize(capacity()), RobotRecordLayout.HEADER_SIZE), capacity());
+            for (int robot = 0; robot < capacity(); robot++) {
+                copy.setPose(robot, x[robot], y[robot], heading[robot]);
+                copy.setTarget(robot, targetX[robot], targetY[robot]);
+                copy.setVelocity(robot, velocity[robot], angularVelocity[robot]);
+                copy.setFlags(robot, flags[robot]);
+            }
+            copy.writeSnapshot(file);
+        }
+    }
+
+    /**
+     * Массивы освобождает сборщик мусора, поэтому закрывать нечего.
+     */
+    @Override
+    public void close() {
+    }
+}
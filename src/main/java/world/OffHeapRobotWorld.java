@@ -0,0 +1,264 @@
+package world;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static world.RobotRecordLayout.ANGULAR_VELOCITY;
+import static world.RobotRecordLayout.DOUBLE;
+import static world.RobotRecordLayout.FLAGS;
+import static world.RobotRecordLayout.HEADING;
+import static world.RobotRecordLayout.INT;
+import static world.RobotRecordLayout.TARGET_X;
+import static world.RobotRecordLayout.TARGET_Y;
+import static world.RobotRecordLayout.VELOCITY;
+import static world.RobotRecordLayout.X;
+import static world.RobotRecordLayout.Y;
+import static world.RobotRecordLayout.offset;
+
+/**
+ * Хранилище состояния роботов вне кучи: одна область памяти
+ * в формате {@link RobotRecordLayout}. Сборщик мусора не видит отдельных
+ * роботов, поэтому размер кучи и паузы не зависят от их числа.
+ * Область может быть отображением файла, и тогда внешний процесс
+ * видит состояние роботов, отобразив тот же файл.
+ * <p>
+ * Память и отображение файла принадлежат общей арене хранилища
+ * и освобождаются методом {@link #close()}.
+ */
+public class OffHeapRobotWorld implements RobotWorld {
+
+    /**
+     * Размер порции при записи снимка; ограничен размером {@link java.nio.ByteBuffer}.
+     */
+    private static final long SNAPSHOT_CHUNK = 1 << 30;
+
+    /**
+     * Область с заголовком и записями роботов.
+     */
+    private final MemorySegment segment;
+    /**
+     * Число записей.
+     */
+    private final int capacity;
+    /**
+     * Арена, которой принадлежит область; {@code null}, если временем жизни
+     * области управляет вызывающий код.
+     */
+    private final Arena arena;
+
+    /**
+     * Создаёт хранилище поверх готовой области и записывает в неё заголовок.
+     * Временем жизни области управляет вызывающий код.
+     *
+     * @param segment  область размером не меньше {@link RobotRecordLayout#byteSize(long)}
+     * @param capacity число записей
+     */
+    OffHeapRobotWorld(MemorySegment segment, int capacity) {
+        this(segment, capacity, null);
+    }
+
+    /**
+     * Создаёт хранилище поверх области, принадлежащей арене хранилища.
+     *
+     * @param segment  область размером не меньше {@link RobotRecordLayout#byteSize(long)}
+     * @param capacity число записей
+     * @param arena    арена, закрываемая в {@link #close()}, или {@code null}
+     */
+    private OffHeapRobotWorld(MemorySegment segment, int capacity, Arena arena) {
+        if (segment.byteSize() < RobotRecordLayout.byteSize(capacity)) {
+            throw new IllegalArgumentException("Область мала для " + capacity + " роботов");
+        }
+        this.segment = segment;
+        this.capacity = capacity;
+        this.arena = arena;
+        RobotRecordLayout.writeHeader(segment, capacity);
+    }
+
+    /**
+     * Выделяет хранилище в памяти вне кучи.
+     *
+     * @param capacity число роботов
+     * @return хранилище, заполненное нулями; память освобождается в {@link #close()}
+     */
+    public static OffHeapRobotWorld allocate(int capacity) {
+        Arena arena = Arena.ofShared();
+        try {
+            MemorySegment segment = arena.allocate(RobotRecordLayout.byteSize(capacity), RobotRecordLayout.HEADER_SIZE);
+            return new OffHeapRobotWorld(segment, capacity, arena);
+        } catch (RuntimeException | OutOfMemoryError e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Отображает файл в память и использует его как хранилище.
+     * Файл создаётся или расширяется до нужного размера; изменения
+     * сразу видны другим процессам, отобразившим тот же файл.
+     *
+     * @param file     файл мира
+     * @param capacity число роботов
+     * @return хранилище поверх отображённого файла; отображение снимается в {@link #close()}
+     * @throws IOException если файл не удалось открыть или отобразить
+     */
+    public static OffHeapRobotWorld mapped(Path file, int capacity) throws IOException {
+        long size = RobotRecordLayout.byteSize(capacity);
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+            return new OffHeapRobotWorld(segment, capacity, arena);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Открывает только для чтения файл снимка или файл мира, записанный другим процессом.
+     * Если файл мира одновременно изменяется, записи читаются по протоколу,
+     * описанному в {@link RobotRecordLayout}.
+     *
+     * @param file  файл в формате {@link RobotRecordLayout}
+     * @param arena арена, управляющая временем жизни отображения
+     * @return область с заголовком и записями
+     * @throws IOException если файл не удалось открыть или его формат неверен
+     */
+    public static MemorySegment open(Path file, Arena arena) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            RobotRecordLayout.readCapacity(segment);
+            return segment;
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public double x(int robot) {
+        return segment.get(DOUBLE, offset(robot) + X);
+    }
+
+    @Override
+    public double y(int robot) {
+        return segment.get(DOUBLE, offset(robot) + Y);
+    }
+
+    @Override
+    public double heading(int robot) {
+        return segment.get(DOUBLE, offset(robot) + HEADING);
+    }
+
+    @Override
+    public double targetX(int robot) {
+        return segment.get(DOUBLE, offset(robot) + TARGET_X);
+    }
+
+    @Override
+    public double targetY(int robot) {
+        return segment.get(DOUBLE, offset(robot) + TARGET_Y);
+    }
+
+    @Override
+    public double velocity(int robot) {
+        return segment.get(DOUBLE, offset(robot) + VELOCITY);
+    }
+
+    @Override
+    public double angularVelocity(int robot) {
+        return segment.get(DOUBLE, offset(robot) + ANGULAR_VELOCITY);
+    }
+
+    @Override
+    public int flags(int robot) {
+        return segment.get(INT, offset(robot) + FLAGS);
+    }
+
+    @Override
+    public void setPose(int robot, double x, double y, double heading) {
+        long offset = offset(robot);
+        segment.set(DOUBLE, offset + X, x);
+        segment.set(DOUBLE, offset + Y, y);
+        segment.set(DOUBLE, offset + HEADING, heading);
+    }
+
+    @Override
+    public void setTarget(int robot, double x, double y) {
+        long offset = offset(robot);
+        segment.set(DOUBLE, offset + TARGET_X, x);
+        segment.set(DOUBLE, offset + TARGET_Y, y);
+    }
+
+    @Override
+    public void setVelocity(int robot, double velocity, double angularVelocity) {
+        long offset = offset(robot);
+        segment.set(DOUBLE, offset + VELOCITY, velocity);
+        segment.set(DOUBLE, offset + ANGULAR_VELOCITY, angularVelocity);
+    }
+
+    @Override
+    public void setFlags(int robot, int flags) {
+        segment.set(INT, offset(robot) + FLAGS, flags);
+    }
+
+    @Override
+    public void beginWrite() {
+        RobotRecordLayout.beginWrite(segment);
+    }
+
+    @Override
+    public void publish() {
+        RobotRecordLayout.endWrite(segment);
+    }
+
+    @Override
+    public long beginRead() {
+        return RobotRecordLayout.beginRead(segment);
+    }
+
+    @Override
+    public boolean validate(long stamp) {
+        return RobotRecordLayout.validate(segment, stamp);
+    }
+
+    /**
+     * Записывает область целиком в файл снимка, без промежуточного копирования в кучу.
+     *
+     * @param file файл снимка
+     * @throws IOException если запись не удалась
+     */
+    @Override
+    public void writeSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = RobotRecordLayout.byteSize(capacity);
+            for (long position = 0; position < size; position += SNAPSHOT_CHUNK) {
+                ByteBuffer buffer = segment.asSlice(position, Math.min(SNAPSHOT_CHUNK, size - position)).asByteBuffer();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Закрывает арену хранилища. Область, временем жизни которой управляет
+     * вызывающий код, не освобождается.
+     */
+    @Override
+    public void close() {
+        if (arena != null && arena.scope().isAlive()) {
+            arena.close();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package world;
+
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.function.LongSupplier;
+
+import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
+
+/**
+ * Двоичный формат мира роботов: заголовок и следующие за ним записи
+ * фиксированного размера, по одной на робота. Один и тот же формат
+ * используется для памяти вне кучи, файлов снимков и файлов, отображаемых
+ * в память для внешнего визуализатора. Порядок байтов — little-endian.
+ * <p>
+ * Заголовок ({@value #HEADER_SIZE} байт): сигнатура {@value #MAGIC},
+ * версия формата, размер записи и число записей (четыре {@code int}),
+ * затем счётчик изменений ({@code long}).
+ * Запись (64 байта, {@link #RECORD_SIZE}): координаты x и y (пиксели), направление (радианы),
+ * координаты цели (пиксели), линейная (пиксели в миллисекунду) и угловая (радианы
+ * в миллисекунду) скорости ({@code double}) и флаги ({@code int}).
+ * <p>
+ * Согласованность записей обеспечивает счётчик изменений (seqlock).
+ * Единственный пишущий поток перед изменением делает счётчик нечётным,
+ * а после изменения - снова чётным, записывая его с семантикой release.
+ * Читатель, в том числе внешний процесс, отобразивший файл мира, действует так:
+ * <ol>
+ *     <li>читает счётчик с семантикой acquire ({@link #beginRead(MemorySegment)});
+ *     пока он нечётный, идёт изменение, и чтение нужно повторить;</li>
+ *     <li>читает нужные записи, не полагаясь на их согласованность;</li>
+ *     <li>ставит барьер acquire и снова читает счётчик
+ *     ({@link #validate(MemorySegment, long)}); если счётчик изменился,
+ *     прочитанные значения отбрасываются и чтение повторяется с шага 1.</li>
+ * </ol>
+ * Запись с release и чтение с acquire одного и того же счётчика дают
+ * отношение happens-before между изменением и чтением, которое его увидело.
+ * <p>
+ * Если пишущий процесс завершился посреди изменения, счётчик остаётся нечётным
+ * навсегда, поэтому ожидание на шаге 1 ограничено временем {@value #READ_TIMEOUT} мс.
+ */
+public final class RobotRecordLayout {
+
+    /**
+     * Сигнатура файла мира: "RBTW".
+     */
+    public static final int MAGIC = 0x52425457;
+    /**
+     * Версия формата.
+     */
+    public static final int VERSION = 2;
+    /**
+     * Размер заголовка в байтах; выбран так, чтобы записи были выровнены.
+     */
+    public static final int HEADER_SIZE = 64;
+    /**
+     * Флаг: запись занята роботом.
+     */
+    public static final int FLAG_ACTIVE = 1;
+    /**
+     * Флаг: робот достиг цели, то есть контроллер считает цель достигнутой
+     * и держит робота на месте.
+     */
+    public static final int FLAG_AT_TARGET = 1 << 1;
+    /**
+     * Наибольшее время в миллисекундах, в течение которого {@link #beginRead(MemorySegment)}
+     * ждёт завершения изменения. Изменение длится микросекунды, так что превысить
+     * это время может только остановленный или аварийно завершённый пишущий поток.
+     */
+    public static final long READ_TIMEOUT = 1000;
+    /**
+     * Число попыток активного ожидания изменения, после которых читатель
+     * уступает процессор и начинает проверять время ожидания.
+     */
+    private static final int READ_SPINS = 1000;
+
+    /**
+     * Вещественное поле записи.
+     */
+    static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE.withOrder(ByteOrder.LITTLE_ENDIAN);
+    /**
+     * Целочисленное поле записи и заголовка.
+     */
+    static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    /**
+     * Целочисленное поле заголовка двойной длины.
+     */
+    static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Структура заголовка.
+     */
+    public static final StructLayout HEADER = MemoryLayout.structLayout(
+            INT.withName("magic"),
+            INT.withName("version"),
+            INT.withName("recordSize"),
+            INT.withName("capacity"),
+            LONG.withName("sequence"),
+            MemoryLayout.paddingLayout(HEADER_SIZE - 24));
+    /**
+     * Доступ к счётчику изменений; координаты - область и смещение заголовка (всегда 0).
+     */
+    private static final VarHandle SEQUENCE = HEADER.varHandle(groupElement("sequence"));
+
+    /**
+     * Структура одной записи.
+     */
+    public static final StructLayout RECORD = MemoryLayout.structLayout(
+            DOUBLE.withName("x"),
+            DOUBLE.withName("y"),
+            DOUBLE.withName("heading"),
+            DOUBLE.withName("targetX"),
+            DOUBLE.withName("targetY"),
+            DOUBLE.withName("velocity"),
+            DOUBLE.withName("angularVelocity"),
+            INT.withName("flags"),
+            MemoryLayout.paddingLayout(4));
+    /**
+     * Размер записи в байтах.
+     */
+    public static final long RECORD_SIZE = RECORD.byteSize();
+
+    /**
+     * Смещение поля {@code x} от начала записи в байтах: координата X робота в пикселях.
+     */
+    static final long X = RECORD.byteOffset(groupElement("x"));
+    /**
+     * Смещение поля {@code y}: координата Y робота в пикселях, ось направлена вниз.
+     */
+    static final long Y = RECORD.byteOffset(groupElement("y"));
+    /**
+     * Смещение поля {@code heading}: направление робота в радианах в диапазоне [0, 2π).
+     */
+    static final long HEADING = RECORD.byteOffset(groupElement("heading"));
+    /**
+     * Смещение поля {@code targetX}: координата X цели в пикселях.
+     */
+    static final long TARGET_X = RECORD.byteOffset(groupElement("targetX"));
+    /**
+     * Смещение поля {@code targetY}: координата Y цели в пикселях.
+     */
+    static final long TARGET_Y = RECORD.byteOffset(groupElement("targetY"));
+    /**
+     * Смещение поля {@code velocity}: линейная скорость на последнем шаге в пикселях в миллисекунду.
+     */
+    static final long VELOCITY = RECORD.byteOffset(groupElement("velocity"));
+    /**
+     * Смещение поля {@code angularVelocity}: угловая скорость на последнем шаге
+     * в радианах в миллисекунду.
+     */
+    static final long ANGULAR_VELOCITY = RECORD.byteOffset(groupElement("angularVelocity"));
+    /**
+     * Смещение поля {@code flags}: флаги {@link #FLAG_ACTIVE} и {@link #FLAG_AT_TARGET}.
+     */
+    static final long FLAGS = RECORD.byteOffset(groupElement("flags"));
+
+    private RobotRecordLayout() {
+    }
+
+    /**
+     * Вычисляет размер области для заданного числа записей вместе с заголовком.
+     *
+     * @param capacity число записей
+     * @return размер в байтах
+     */
+    public static long byteSize(long capacity) {
+        return HEADER_SIZE + capacity * RECORD_SIZE;
+    }
+
+    /**
+     * Записывает заголовок в начало области.
+     *
+     * @param segment  область мира
+     * @param capacity число записей
+     */
+    static void writeHeader(MemorySegment segment, int capacity) {
+        segment.set(INT, HEADER.byteOffset(groupElement("magic")), MAGIC);
+        segment.set(INT, HEADER.byteOffset(groupElement("version")), VERSION);
+        segment.set(INT, HEADER.byteOffset(groupElement("recordSize")), (int) RECORD_SIZE);
+        segment.set(INT, HEADER.byteOffset(groupElement("capacity")), capacity);
+        SEQUENCE.setRelease(segment, 0L, 0L);
+    }
+
+    /**
+     * Проверяет заголовок области и возвращает число записей.
+     *
+     * @param segment область мира
+     * @return число записей
+     * @throws IllegalArgumentException если заголовок не соответствует формату
+     */
+    static int readCapacity(MemorySegment segment) {
+        if (segment.byteSize() < HEADER_SIZE
+                || segment.get(INT, HEADER.byteOffset(groupElement("magic"))) != MAGIC
+                || segment.get(INT, HEADER.byteOffset(groupElement("version"))) != VERSION
+                || segment.get(INT, HEADER.byteOffset(groupElement("recordSize"))) != RECORD_SIZE) {
+            throw new IllegalArgumentException("Область не содержит мир роботов версии " + VERSION);
+        }
+        int capacity = segment.get(INT, HEADER.byteOffset(groupElement("capacity")));
+        if (capacity < 0 || byteSize(capacity) > segment.byteSize()) {
+            throw new IllegalArgumentException("Повреждённый заголовок мира роботов: " + capacity + " записей");
+        }
+        return capacity;
+    }
+
+    /**
+     * Начинает изменение записей: делает счётчик изменений нечётным.
+     * Вызывается только пишущим потоком.
+     *
+     * @param segment область мира
+     */
+    static void beginWrite(MemorySegment segment) {
+        long sequence = (long) SEQUENCE.get(segment, 0L);
+        SEQUENCE.setRelease(segment, 0L, sequence | 1);
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Завершает изменение записей: делает счётчик изменений следующим чётным числом.
+     * Все изменения записей становятся видимы читателю, который затем прочтёт этот счётчик.
+     * Вызывается только пишущим потоком.
+     *
+     * @param segment область мира
+     */
+    static void endWrite(MemorySegment segment) {
+        long sequence = (long) SEQUENCE.get(segment, 0L);
+        SEQUENCE.setRelease(segment, 0L, (sequence | 1) + 1);
+    }
+
+    /**
+     * Начинает согласованное чтение записей: дожидается, пока счётчик изменений
+     * станет чётным, и возвращает его. Ждёт не дольше {@value #READ_TIMEOUT} мс.
+     *
+     * @param segment область мира
+     * @return метка чтения для {@link #validate(MemorySegment, long)}
+     * @throws IllegalStateException если изменение не завершилось за {@value #READ_TIMEOUT} мс
+     */
+    public static long beginRead(MemorySegment segment) {
+        return beginRead(segment, READ_TIMEOUT);
+    }
+
+    /**
+     * Начинает согласованное чтение записей с заданным временем ожидания.
+     *
+     * @param segment область мира
+     * @param timeout наибольшее время ожидания завершения изменения в миллисекундах
+     * @return метка чтения для {@link #validate(MemorySegment, long)}
+     * @throws IllegalStateException если изменение не завершилось за указанное время
+     */
+    public static long beginRead(MemorySegment segment, long timeout) {
+        long sequence = (long) SEQUENCE.getAcquire(segment, 0L);
+        if ((sequence & 1) == 0) {
+            return sequence;
+        }
+        return awaitStable(() -> (long) SEQUENCE.getAcquire(segment, 0L), timeout);
+    }
+
+    /**
+     * Ждёт, пока счётчик изменений станет чётным: сначала активно,
+     * затем уступая процессор, но не дольше заданного времени.
+     *
+     * @param sequence чтение счётчика с семантикой acquire
+     * @param timeout  наибольшее время ожидания в миллисекундах
+     * @return чётное значение счётчика
+     * @throws IllegalStateException если счётчик не стал чётным за указанное время
+     */
+    static long awaitStable(LongSupplier sequence, long timeout) {
+        long deadline = System.nanoTime() + timeout * 1_000_000;
+        for (int spins = 0; ; spins++) {
+            long stamp = sequence.getAsLong();
+            if ((stamp & 1) == 0) {
+                return stamp;
+            }
+            if (spins < READ_SPINS) {
+                Thread.onSpinWait();
+            } else if (System.nanoTime() - deadline < 0) {
+                Thread.yield();
+            } else {
+                throw new IllegalStateException("Изменение мира роботов не завершилось за " + timeout
+                        + " мс: пишущий поток остановлен или завершился аварийно");
+            }
+        }
+    }
+
+    /**
+     * Проверяет, что с момента {@link #beginRead(MemorySegment)} записи не изменялись,
+     * то есть прочитанные значения согласованы.
+     *
+     * @param segment область мира
+     * @param stamp   метка чтения
+     * @return {@code true}, если прочитанные значения можно использовать
+     */
+    public static boolean validate(MemorySegment segment, long stamp) {
+        VarHandle.acquireFence();
+        return (long) SEQUENCE.getAcquire(segment, 0L) == stamp;
+    }
+
+    /**
+     * Вычисляет смещение записи робота от начала области.
+     *
+     * @param robot номер робота
+     * @return смещение в байтах
+     */
+    static long offset(int robot) {
+        return HEADER_SIZE + robot * RECORD_SIZE;
+    }
+}
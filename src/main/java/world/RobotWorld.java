@@ -0,0 +1,186 @@
+package world;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Хранилище состояния роботов: положение, направление, цель, скорости и флаги.
+ * Изменять хранилище может только один поток (поток модели), заключая
+ * изменения между {@link #beginWrite()} и {@link #publish()}. Остальные потоки
+ * читают по протоколу seqlock, описанному в {@link RobotRecordLayout}:
+ * <pre>{@code
+ * long stamp;
+ * do {
+ *     stamp = world.beginRead();
+ *     x = world.x(robot);
+ *     ...
+ * } while (!world.validate(stamp));
+ * }</pre>
+ * Хранилище вне кучи занимает память до вызова {@link #close()}.
+ */
+public interface RobotWorld extends AutoCloseable {
+
+    /**
+     * Создаёт хранилище по системным свойствам:
+     * {@code robots.world=offheap} включает хранение вне кучи,
+     * {@code robots.world.file} задаёт файл, отображаемый в память для обмена
+     * с внешним визуализатором, {@code robots.world.capacity} — число роботов.
+     *
+     * @param minCapacity минимальное число роботов, нужное приложению
+     * @return хранилище состояния
+     * @throws IOException если не удалось отобразить файл в память
+     */
+    static RobotWorld fromSystemProperties(int minCapacity) throws IOException {
+        int capacity = Math.max(minCapacity, Integer.getInteger("robots.world.capacity", minCapacity));
+        String file = System.getProperty("robots.world.file");
+        if (file != null) {
+            return OffHeapRobotWorld.mapped(Path.of(file), capacity);
+        }
+        if ("offheap".equals(System.getProperty("robots.world"))) {
+            return OffHeapRobotWorld.allocate(capacity);
+        }
+        return new HeapRobotWorld(capacity);
+    }
+
+    /**
+     * @return число роботов, которое вмещает хранилище
+     */
+    int capacity();
+
+    /**
+     * @param robot номер робота
+     * @return координата X робота в пикселях (поле {@code x} записи)
+     */
+    double x(int robot);
+
+    /**
+     * @param robot номер робота
+     * @return координата Y робота в пикселях, ось направлена вниз (поле {@code y} записи)
+     */
+    double y(int robot);
+
+    /**
+     * @param robot номер робота
+     * @return направление робота в радианах в диапазоне [0, 2π), отсчитываемое
+     * от оси X в сторону оси Y (поле {@code heading} записи)
+     */
+    double heading(int robot);
+
+    /**
+     * @param robot номер робота
+     * @return координата X цели робота в пикселях (поле {@code targetX} записи)
+     */
+    double targetX(int robot);
+
+    /**
+     * @param robot номер робота
+     * @return координата Y цели робота в пикселях (поле {@code targetY} записи)
+     */
+    double targetY(int robot);
+
+    /**
+     * @param robot номер робота
+     * @return линейная скорость, с которой робот двигался на последнем шаге,
+     * в пикселях в миллисекунду (поле {@code velocity} записи)
+     */
+    double velocity(int robot);
+
+    /**
+     * @param robot номер робота
+     * @return угловая скорость, с которой робот поворачивал на последнем шаге,
+     * в радианах в миллисекунду; положительная увеличивает направление
+     * (поле {@code angularVelocity} записи)
+     */
+    double angularVelocity(int robot);
+
+    /**
+     * @param robot номер робота
+     * @return флаги робота: {@link RobotRecordLayout#FLAG_ACTIVE},
+     * {@link RobotRecordLayout#FLAG_AT_TARGET} (поле {@code flags} записи)
+     */
+    int flags(int robot);
+
+    /**
+     * Задаёт положение и направление робота.
+     *
+     * @param robot   номер робота
+     * @param x       координата X в пикселях
+     * @param y       координата Y в пикселях
+     * @param heading направление в радианах
+     */
+    void setPose(int robot, double x, double y, double heading);
+
+    /**
+     * Задаёт цель робота.
+     *
+     * @param robot номер робота
+     * @param x     координата X цели в пикселях
+     * @param y     координата Y цели в пикселях
+     */
+    void setTarget(int robot, double x, double y);
+
+    /**
+     * Задаёт текущие скорости робота.
+     *
+     * @param robot           номер робота
+     * @param velocity        линейная скорость в пикселях в миллисекунду
+     * @param angularVelocity угловая скорость в радианах в миллисекунду
+     */
+    void setVelocity(int robot, double velocity, double angularVelocity);
+
+    /**
+     * Задаёт флаги робота, см. {@link RobotRecordLayout#FLAG_ACTIVE}.
+     *
+     * @param robot номер робота
+     * @param flags флаги
+     */
+    void setFlags(int robot, int flags);
+
+    /**
+     * Начинает изменение хранилища. Читатели, начавшие чтение до {@link #publish()},
+     * отбросят прочитанное. Парный {@link #publish()} вызывается в блоке {@code finally}:
+     * если изменение прервётся исключением, читатели иначе будут ждать до истечения
+     * {@link RobotRecordLayout#READ_TIMEOUT}.
+     */
+    void beginWrite();
+
+    /**
+     * Завершает изменение, начатое {@link #beginWrite()}, и делает его видимым
+     * читателям, начавшим чтение после этого вызова.
+     */
+    void publish();
+
+    /**
+     * Начинает согласованное чтение; дожидается завершения текущего изменения,
+     * но не дольше {@link RobotRecordLayout#READ_TIMEOUT} мс.
+     *
+     * @return метка чтения для {@link #validate(long)}
+     * @throws IllegalStateException если изменение не завершилось за это время
+     */
+    long beginRead();
+
+    /**
+     * Проверяет, что с начала чтения хранилище не изменялось.
+     *
+     * @param stamp метка, полученная от {@link #beginRead()}
+     * @return {@code true}, если прочитанные значения согласованы
+     */
+    boolean validate(long stamp);
+
+    /**
+     * Сохраняет состояние всех роботов в файл снимка в формате {@link RobotRecordLayout}.
+     * Вызывается пишущим потоком, поэтому снимок согласован без повторного чтения.
+     *
+     * @param file файл снимка
+     * @throws IOException если запись не удалась
+     */
+    void writeSnapshot(Path file) throws IOException;
+
+    /**
+     * Освобождает память хранилища и снимает отображение файла мира.
+     * После закрытия хранилище использовать нельзя; повторный вызов ничего не делает.
+     * Вызывается, когда ни пишущий поток, ни читатели к хранилищу больше не обращаются.
+     */
+    @Override
+    void close();
+}
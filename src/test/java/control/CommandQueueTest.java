@@ -0,0 +1,95 @@
+package control;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверки очереди команд: курсоры, монотонность времени, очистка истории и переполнение.
+ */
+class CommandQueueTest {
+
+    @Test
+    void cursorHasNoCommandBeforeFirstApplyTime() {
+        CommandQueue queue = new CommandQueue(8);
+        CommandQueue.Cursor cursor = queue.cursor();
+        assertFalse(cursor.advanceTo(100));
+        queue.push(50, 0.1, 0);
+        assertFalse(cursor.advanceTo(49));
+        assertTrue(cursor.advanceTo(50));
+        assertEquals(0.1, cursor.velocity());
+    }
+
+    @Test
+    void cursorFollowsCommandsAsTimeAdvances() {
+        CommandQueue queue = new CommandQueue(8);
+        queue.push(10, 0.01, 0.001);
+        queue.push(20, 0.02, 0.002);
+        queue.push(30, 0.03, 0.003);
+        CommandQueue.Cursor cursor = queue.cursor();
+        cursor.advanceTo(15);
+        assertEquals(0.01, cursor.velocity());
+        cursor.advanceTo(20);
+        assertEquals(0.02, cursor.velocity());
+        assertEquals(0.002, cursor.angularVelocity());
+        cursor.advanceTo(1000);
+        assertEquals(0.03, cursor.velocity());
+    }
+
+    @Test
+    void commandCannotTakeEffectBeforePreviousOne() {
+        CommandQueue queue = new CommandQueue(8);
+        queue.push(30, 0.03, 0);
+        queue.push(20, 0.02, 0);
+        CommandQueue.Cursor cursor = queue.cursor();
+        assertFalse(cursor.advanceTo(25));
+        cursor.advanceTo(30);
+        assertEquals(0.02, cursor.velocity());
+    }
+
+    @Test
+    void discardKeepsCommandActiveAtGivenTime() {
+        CommandQueue queue = new CommandQueue(8);
+        queue.push(10, 0.01, 0);
+        queue.push(20, 0.02, 0);
+        queue.push(30, 0.03, 0);
+        queue.discardBefore(25);
+        CommandQueue.Cursor cursor = queue.cursor();
+        assertTrue(cursor.advanceTo(25));
+        assertEquals(0.02, cursor.velocity());
+    }
+
+    @Test
+    void cursorSurvivesDiscardOfItsCommand() {
+        CommandQueue queue = new CommandQueue(8);
+        queue.push(10, 0.01, 0);
+        queue.push(20, 0.02, 0);
+        queue.push(30, 0.03, 0);
+        CommandQueue.Cursor cursor = queue.cursor();
+        cursor.advanceTo(10);
+        queue.discardBefore(30);
+        assertTrue(cursor.advanceTo(30));
+        assertEquals(0.03, cursor.velocity());
+    }
+
+    @Test
+    void overflowDropsOldestCommand() {
+        CommandQueue queue = new CommandQueue(4);
+        CommandQueue.Cursor cursor = queue.cursor();
+        for (int i = 1; i <= 6; i++) {
+            queue.push(i * 10L, i / 100.0, 0);
+        }
+        assertTrue(cursor.advanceTo(30));
+        assertEquals(0.03, cursor.velocity());
+        cursor.advanceTo(60);
+        assertEquals(0.06, cursor.velocity());
+    }
+
+    @Test
+    void capacityMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new CommandQueue(6));
+    }
+}
@@ -0,0 +1,145 @@
+package control;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверки предсказателя по внутренней модели. Корректность предсказателя
+ * держится на том, что он совпадает с полным прогоном модели от измеренного
+ * состояния, поэтому результат сравнивается именно с таким прогоном.
+ */
+class InternalModelPredictorTest {
+
+    /**
+     * Период шага модели в миллисекундах.
+     */
+    private static final long STEP = 10;
+    /**
+     * Допустимое расхождение с полным прогоном в пикселях и радианах.
+     */
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    void matchesFullReplayOnRandomCommandsAndObservations() {
+        History history = new History(128);
+        InternalModelPredictor predictor = new InternalModelPredictor(history.queue, STEP, 128);
+        SplittableRandom random = new SplittableRandom(1);
+        int checked = 0;
+        for (long now = STEP; now <= 50_000; now += STEP) {
+            history.push(now + 200 + random.nextLong(30),
+                    random.nextDouble() * RobotKinematics.MAX_VELOCITY,
+                    (random.nextDouble() - 0.5) * 2 * RobotKinematics.MAX_ANGULAR_VELOCITY);
+            history.queue.discardBefore(now - 400);
+            long observedAt = now - 300;
+            if (observedAt < 0) {
+                continue;
+            }
+            RobotState observed = new RobotState(random.nextDouble() * 500, random.nextDouble() * 500,
+                    random.nextDouble() * 2 * Math.PI, observedAt);
+            long time = now + 200;
+            assertClose(history.replay(observed, time), predictor.predict(observed, time));
+            checked++;
+        }
+        assertTrue(checked > 4_000);
+    }
+
+    @Test
+    void matchesFullReplayAfterObservationLeavesHistory() {
+        History history = new History(128);
+        InternalModelPredictor predictor = new InternalModelPredictor(history.queue, STEP, 16);
+        for (long time = 0; time < 1000; time += STEP) {
+            history.push(time, RobotKinematics.MAX_VELOCITY, time % 200 < 100 ? 0.0005 : -0.0005);
+        }
+        for (long time = 200; time <= 600; time += STEP) {
+            RobotState observed = new RobotState(100 + time / 10.0, 100, time / 1000.0, time - 100);
+            assertClose(history.replay(observed, time), predictor.predict(observed, time));
+        }
+        RobotState stale = new RobotState(120, 90, 1, 300);
+        assertClose(history.replay(stale, 800), predictor.predict(stale, 800));
+    }
+
+    @Test
+    void robotStandsStillBeforeFirstCommand() {
+        CommandQueue queue = new CommandQueue(16);
+        InternalModelPredictor predictor = new InternalModelPredictor(queue, STEP, 16);
+        RobotState observed = new RobotState(10, 20, 1, 0);
+        RobotState predicted = predictor.predict(observed, 55);
+        assertEquals(10, predicted.x(), TOLERANCE);
+        assertEquals(20, predicted.y(), TOLERANCE);
+        assertEquals(1, predicted.direction(), TOLERANCE);
+        assertEquals(55, predicted.time());
+    }
+
+    /**
+     * Сравнивает предсказание с эталоном.
+     *
+     * @param expected эталонное состояние
+     * @param actual   предсказанное состояние
+     */
+    private static void assertClose(RobotState expected, RobotState actual) {
+        assertEquals(expected.time(), actual.time());
+        assertEquals(expected.x(), actual.x(), TOLERANCE);
+        assertEquals(expected.y(), actual.y(), TOLERANCE);
+        double turn = RobotKinematics.asNormalizedRadians(expected.direction() - actual.direction() + Math.PI) - Math.PI;
+        assertEquals(0, turn, TOLERANCE);
+    }
+
+    /**
+     * Очередь команд вместе с полным списком отправленных команд для эталонного прогона.
+     */
+    private static final class History {
+        private final CommandQueue queue;
+        private final List<long[]> applyAt = new ArrayList<>();
+        private final List<double[]> commands = new ArrayList<>();
+
+        History(int capacity) {
+            queue = new CommandQueue(capacity);
+        }
+
+        void push(long time, double velocity, double angularVelocity) {
+            long previous = applyAt.isEmpty() ? Long.MIN_VALUE : applyAt.get(applyAt.size() - 1)[0];
+            applyAt.add(new long[]{Math.max(time, previous)});
+            commands.add(new double[]{velocity, angularVelocity});
+            queue.push(time, velocity, angularVelocity);
+        }
+
+        /**
+         * Прогоняет модель от измеренного состояния шагами периода модели,
+         * на каждом шаге заново отыскивая действующую команду по полному списку.
+         */
+        RobotState replay(RobotState observed, long time) {
+            RobotState state = observed;
+            while (state.time() < time) {
+                int active = lastAppliedAt(state.time());
+                long duration = Math.min(STEP, time - state.time());
+                state = active < 0
+                        ? new RobotState(state.x(), state.y(), state.direction(), state.time() + duration)
+                        : RobotKinematics.move(state, commands.get(active)[0], commands.get(active)[1], duration);
+            }
+            return state;
+        }
+
+        /**
+         * @return индекс последней команды, вступившей в силу не позже {@code time}, или -1
+         */
+        private int lastAppliedAt(long time) {
+            int low = 0;
+            int high = applyAt.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (applyAt.get(middle)[0] <= time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low - 1;
+        }
+    }
+}